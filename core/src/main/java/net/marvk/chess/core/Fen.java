@@ -1,20 +1,8 @@
 package net.marvk.chess.core;
 
-import java.util.Arrays;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import net.marvk.chess.core.bitboards.Bitboard;
 
 public final class Fen {
-    private static final Pattern FEN_PATTERN = Pattern.compile("^" +
-            "(?<piecePlacement>(?!.{0,6}[1-8][1-8])[PNBRQKpnbrqk1-8]{1,8}(?:/(?!.{0,6}[1-8][1-8])[PNBRQKpnbrqk1-8]{1,8}){7}) " +
-            "(?<activeColor>[bw]) " +
-            "(?<castlingAvailability>(?=[KQkq])(?:K?Q?k?q?)|-) " +
-            "(?<enPassantTargetSquare>[a-h][1-8]|-)(:? " +
-            "(?<halfmoveClock>\\d+) " +
-            "(?<fullmoveClock>\\d+))?" +
-            "$"
-    );
-
     public static final Fen EMPTY_BOARD = Fen.parse("8/8/8/8/8/8/8/8 w - -");
     public static final Fen STARTING_POSITION = Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
 
@@ -26,65 +14,49 @@ public final class Fen {
     private final String halfmoveClock;
     private final String fullmoveClock;
 
-    private Fen(final String input) {
-        this(input, FEN_PATTERN.matcher(input));
-
-        if (!isValid()) {
-            throw new IllegalArgumentException("Input string is not a valid FEN notation");
-        }
-    }
+    /**
+     * Holds the parsed position, never used to parse other input
+     */
+    private final FenParser parser;
 
-    private Fen(final String input, final Matcher matcher) {
-        if (!matcher.matches()) {
-            throw new IllegalArgumentException("Input string is not a valid FEN notation: " + input);
-        }
+    private Fen(final String input) {
+        this.parser = new FenParser(true).parse(input);
 
         this.input = input;
-        this.piecePlacement = matcher.group("piecePlacement");
-        this.activeColor = matcher.group("activeColor");
-        this.castlingAvailability = matcher.group("castlingAvailability");
-        this.enPassantTargetSquare = matcher.group("enPassantTargetSquare");
-
-        final String halfmoveClock = matcher.group("halfmoveClock");
-        this.halfmoveClock = halfmoveClock == null ? "0" : halfmoveClock;
-
-        final String fullmoveClock = matcher.group("fullmoveClock");
-        this.fullmoveClock = fullmoveClock == null ? "1" : fullmoveClock;
+        this.piecePlacement = field(FenParser.PIECE_PLACEMENT, null);
+        this.activeColor = field(FenParser.ACTIVE_COLOR, null);
+        this.castlingAvailability = field(FenParser.CASTLING_AVAILABILITY, null);
+        this.enPassantTargetSquare = field(FenParser.EN_PASSANT_TARGET_SQUARE, null);
+        this.halfmoveClock = field(FenParser.HALFMOVE_CLOCK, "0");
+        this.fullmoveClock = field(FenParser.FULLMOVE_CLOCK, "1");
     }
 
-    private boolean isValid() {
-        final String[] rows = piecePlacement.split("/");
-
-        final boolean piecePlacementRowsValid =
-                Arrays.stream(rows)
-                      .mapToInt(s -> s.chars().map(Fen::piecePlacementLength).sum())
-                      .noneMatch(rowSum -> rowSum != 8);
+    private String field(final int field, final String defaultValue) {
+        final int start = parser.getFieldStart(field);
 
-        final boolean castlingAvailabilityValid = !castlingAvailability.isEmpty();
-
-        return piecePlacementRowsValid && castlingAvailabilityValid;
+        return start < 0 ? defaultValue : input.substring(start, parser.getFieldEnd(field));
     }
 
     public static Fen parse(final String input) {
         return new Fen(input.trim());
     }
 
-    public static boolean isValid(final String input) {
-        final Matcher matcher = FEN_PATTERN.matcher(input.trim());
-
-        if (!matcher.matches()) {
-            return false;
-        }
-
-        return new Fen(input, matcher).isValid();
+    /**
+     * Replaces the position of {@code board} with this one without parsing the input again.
+     *
+     * @see Bitboard#load(FenParser)
+     */
+    public void load(final Bitboard board) {
+        board.load(parser);
     }
 
-    private static int piecePlacementLength(final int i) {
-        if (Character.isDigit(i)) {
-            return i - '0';
+    public static boolean isValid(final String input) {
+        try {
+            new FenParser(true).parse(input.trim());
+            return true;
+        } catch (final IllegalArgumentException e) {
+            return false;
         }
-
-        return 1;
     }
 
     public String getInput() {
@@ -0,0 +1,419 @@
+package net.marvk.chess.core;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Single pass FEN parser without regular expressions. The parsed position is kept in reusable primitive fields, so one
+ * instance can convert any number of positions without allocating. Not thread safe.
+ * <p>
+ * The strict mode accepts exactly the notation of {@link Fen}: fields separated by single spaces, ranks without
+ * adjacent digits, the castling availability in {@code KQkq} order and either both clocks or none. The lenient mode
+ * also accepts surrounding and repeated whitespace, adjacent digits, the castling availability in any order and missing
+ * trailing fields, and ignores anything following the fields it can read, for example EPD operations.
+ */
+public final class FenParser {
+    public static final int PIECE_PLACEMENT = 0;
+    public static final int ACTIVE_COLOR = 1;
+    public static final int CASTLING_AVAILABILITY = 2;
+    public static final int EN_PASSANT_TARGET_SQUARE = 3;
+    public static final int HALFMOVE_CLOCK = 4;
+    public static final int FULLMOVE_CLOCK = 5;
+
+    public static final int WHITE_KING_SIDE_CASTLE = 0b0001;
+    public static final int WHITE_QUEEN_SIDE_CASTLE = 0b0010;
+    public static final int BLACK_KING_SIDE_CASTLE = 0b0100;
+    public static final int BLACK_QUEEN_SIDE_CASTLE = 0b1000;
+
+    private static final int FIELDS = 6;
+    private static final String CASTLING_ORDER = "KQkq";
+
+    private final boolean strict;
+
+    /**
+     * FEN letter of the piece on every square by bitboard index, {@code 0} if the square is empty
+     */
+    private final char[] pieces = new char[64];
+    private final int[] fieldStarts = new int[FIELDS];
+    private final int[] fieldEnds = new int[FIELDS];
+
+    private boolean whiteToMove;
+    private int castlingAvailability;
+    private int enPassantSquareIndex;
+    private int halfmoveClock;
+    private int fullmoveClock;
+
+    private CharSequence input;
+    private int start;
+    private int position;
+    private int end;
+
+    /**
+     * @param strict whether to accept only the notation of {@link Fen}
+     */
+    public FenParser(final boolean strict) {
+        this.strict = strict;
+    }
+
+    public FenParser parse(final CharSequence input) {
+        return parse(input, 0, input.length());
+    }
+
+    /**
+     * Parses the ASCII encoded FEN in {@code input[start, end)}.
+     */
+    public FenParser parse(final byte[] input, final int start, final int end) {
+        return parse(new AsciiSequence(input), start, end);
+    }
+
+    /**
+     * Parses the FEN in {@code input[start, end)}, replacing the previously parsed position.
+     *
+     * @return this parser
+     * @throws IllegalArgumentException if the input is not a valid FEN in the mode of this parser
+     */
+    public FenParser parse(final CharSequence input, final int start, final int end) {
+        this.input = input;
+        this.start = start;
+        this.position = start;
+        this.end = end;
+
+        Arrays.fill(pieces, '\0');
+        Arrays.fill(fieldStarts, -1);
+        Arrays.fill(fieldEnds, -1);
+
+        whiteToMove = true;
+        castlingAvailability = 0;
+        enPassantSquareIndex = -1;
+        halfmoveClock = 0;
+        fullmoveClock = 1;
+
+        try {
+            if (!strict) {
+                skipWhitespace();
+            }
+
+            piecePlacement();
+
+            if (nextField(true)) {
+                activeColor();
+            }
+
+            if (nextField(true)) {
+                castlingAvailability();
+            }
+
+            if (nextField(true)) {
+                enPassantTargetSquare();
+            }
+
+            if (nextField(false) && (strict || isDigit(input.charAt(position)))) {
+                halfmoveClock = clock(HALFMOVE_CLOCK);
+
+                if (nextField(true)) {
+                    fullmoveClock = clock(FULLMOVE_CLOCK);
+                }
+            }
+
+            if (strict && position != end) {
+                throw invalid("unexpected trailing input");
+            }
+
+            return this;
+        } finally {
+            this.input = null;
+        }
+    }
+
+    private void piecePlacement() {
+        fieldStarts[PIECE_PLACEMENT] = position;
+
+        for (int rank = 7; rank >= 0; rank--) {
+            int file = 0;
+            boolean previousDigit = false;
+
+            while (position < end && !isFieldEnd(input.charAt(position)) && input.charAt(position) != '/') {
+                final char c = input.charAt(position++);
+
+                if (c >= '1' && c <= '8') {
+                    if (previousDigit && strict) {
+                        throw invalid("adjacent digits in rank " + (rank + 1));
+                    }
+
+                    file += c - '0';
+                    previousDigit = true;
+                } else if (isPiece(c) && file < 8) {
+                    pieces[rank * 8 + file] = c;
+
+                    file++;
+                    previousDigit = false;
+                } else {
+                    throw invalid("unexpected '" + c + "' in rank " + (rank + 1));
+                }
+            }
+
+            if (file != 8) {
+                throw invalid("rank " + (rank + 1) + " does not span eight squares");
+            }
+
+            if (rank > 0) {
+                expect('/');
+            }
+        }
+
+        fieldEnds[PIECE_PLACEMENT] = position;
+    }
+
+    private void activeColor() {
+        fieldStarts[ACTIVE_COLOR] = position;
+
+        final char c = input.charAt(position++);
+
+        if (c == 'w') {
+            whiteToMove = true;
+        } else if (c == 'b') {
+            whiteToMove = false;
+        } else {
+            throw invalid("unexpected active color '" + c + "'");
+        }
+
+        endField(ACTIVE_COLOR);
+    }
+
+    private void castlingAvailability() {
+        fieldStarts[CASTLING_AVAILABILITY] = position;
+
+        if (input.charAt(position) == '-') {
+            position++;
+            endField(CASTLING_AVAILABILITY);
+            return;
+        }
+
+        int previousOrder = -1;
+
+        while (position < end && !isFieldEnd(input.charAt(position))) {
+            final char c = input.charAt(position++);
+            final int order = CASTLING_ORDER.indexOf(c);
+
+            if (order < 0 || (strict && order <= previousOrder)) {
+                throw invalid("unexpected '" + c + "' in castling availability");
+            }
+
+            castlingAvailability |= 1 << order;
+            previousOrder = order;
+        }
+
+        if (previousOrder < 0) {
+            throw invalid("empty castling availability");
+        }
+
+        endField(CASTLING_AVAILABILITY);
+    }
+
+    private void enPassantTargetSquare() {
+        fieldStarts[EN_PASSANT_TARGET_SQUARE] = position;
+
+        final char file = input.charAt(position++);
+
+        if (file != '-') {
+            final char rank = position < end ? input.charAt(position++) : '\0';
+
+            if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+                throw invalid("unexpected en passant target square");
+            }
+
+            enPassantSquareIndex = (rank - '1') * 8 + (file - 'a');
+        }
+
+        endField(EN_PASSANT_TARGET_SQUARE);
+    }
+
+    private int clock(final int field) {
+        fieldStarts[field] = position;
+
+        int result = 0;
+
+        if (position == end || isFieldEnd(input.charAt(position))) {
+            throw invalid("empty clock");
+        }
+
+        while (position < end && !isFieldEnd(input.charAt(position))) {
+            final char c = input.charAt(position++);
+
+            if (!isDigit(c) || result > (Integer.MAX_VALUE - (c - '0')) / 10) {
+                throw invalid("unexpected clock");
+            }
+
+            result = result * 10 + (c - '0');
+        }
+
+        endField(field);
+
+        return result;
+    }
+
+    /**
+     * Moves to the start of the next field.
+     *
+     * @param required whether the input must not end here in strict mode
+     * @return {@code false} if the input ends instead, or if the lenient mode ignores the rest of the input
+     */
+    private boolean nextField(final boolean required) {
+        if (position == end) {
+            if (strict && required) {
+                throw invalid("missing field");
+            }
+
+            return false;
+        }
+
+        if (strict) {
+            expect(' ');
+        } else {
+            skipWhitespace();
+        }
+
+        if (position == end) {
+            if (strict) {
+                throw invalid("missing field");
+            }
+
+            return false;
+        }
+
+        return true;
+    }
+
+    private void endField(final int field) {
+        if (position < end && !isFieldEnd(input.charAt(position))) {
+            throw invalid("unexpected '" + input.charAt(position) + "' after field " + (field + 1));
+        }
+
+        fieldEnds[field] = position;
+    }
+
+    private void expect(final char c) {
+        if (position == end || input.charAt(position) != c) {
+            throw invalid("expected '" + c + "' at " + (position - start));
+        }
+
+        position++;
+    }
+
+    private void skipWhitespace() {
+        while (position < end && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+    }
+
+    private boolean isFieldEnd(final char c) {
+        return strict ? c == ' ' : Character.isWhitespace(c);
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isPiece(final char c) {
+        switch (c) {
+            case 'P':
+            case 'N':
+            case 'B':
+            case 'R':
+            case 'Q':
+            case 'K':
+            case 'p':
+            case 'n':
+            case 'b':
+            case 'r':
+            case 'q':
+            case 'k':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private IllegalArgumentException invalid(final String reason) {
+        return new IllegalArgumentException("Input string is not a valid FEN notation, " + reason + ": " + input.subSequence(start, end));
+    }
+
+    /**
+     * @param squareIndex the bitboard index of the square
+     * @return the FEN letter of the piece on the square, {@code 0} if the square is empty
+     */
+    public char getPiece(final int squareIndex) {
+        return pieces[squareIndex];
+    }
+
+    public boolean isWhiteToMove() {
+        return whiteToMove;
+    }
+
+    /**
+     * @return the castle rights, a combination of {@link #WHITE_KING_SIDE_CASTLE}, {@link #WHITE_QUEEN_SIDE_CASTLE},
+     * {@link #BLACK_KING_SIDE_CASTLE} and {@link #BLACK_QUEEN_SIDE_CASTLE}
+     */
+    public int getCastlingAvailability() {
+        return castlingAvailability;
+    }
+
+    /**
+     * @return the bitboard index of the en passant target square, {@code -1} if there is none
+     */
+    public int getEnPassantSquareIndex() {
+        return enPassantSquareIndex;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveClock() {
+        return fullmoveClock;
+    }
+
+    /**
+     * @param field one of the field constants
+     * @return the index of the first character of the field in the parsed input, {@code -1} if the field is missing
+     */
+    public int getFieldStart(final int field) {
+        return fieldStarts[field];
+    }
+
+    /**
+     * @param field one of the field constants
+     * @return the index after the last character of the field in the parsed input, {@code -1} if the field is missing
+     */
+    public int getFieldEnd(final int field) {
+        return fieldEnds[field];
+    }
+
+    private static final class AsciiSequence implements CharSequence {
+        private final byte[] bytes;
+
+        private AsciiSequence(final byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int length() {
+            return bytes.length;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            return (char) (bytes[index] & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return new String(bytes, start, end - start, StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, bytes.length).toString();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package net.marvk.chess.core;
+
+import net.marvk.chess.core.bitboards.Bitboard;
+import net.marvk.chess.core.bitboards.MoveConstants;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the board of a game that is sent as the full move list from the start position on every ply, like UCI
+ * {@code position} commands and lichess game states. If the new move list extends the previously applied one, only the
+ * new moves are made on the tracked board, otherwise the board is replayed from the start position. Not thread safe.
+ */
+public class PositionTracker {
+    private String fen;
+    private UciMove[] moves = new UciMove[0];
+    private Bitboard board;
+
+    /**
+     * @see #update(String, UciMove[])
+     */
+    public Bitboard update(final UciMove[] uciMoves) {
+        return update(Fen.STARTING_POSITION.getInput(), uciMoves);
+    }
+
+    /**
+     * Brings the tracked board to the position after {@code uciMoves} were played from {@code fen}. The returned board
+     * is kept for the next update and must not be modified, callers that make moves on it have to copy it first.
+     *
+     * @param fen      the start position of the game
+     * @param uciMoves all moves played since the start position
+     * @return the board after the moves, with the moves on its undo stack
+     * @throws IllegalStateException if a move is not legal in its position
+     */
+    public Bitboard update(final String fen, final UciMove[] uciMoves) {
+        final int applied;
+
+        if (board != null && fen.equals(this.fen) && extendsApplied(uciMoves)) {
+            applied = moves.length;
+        } else {
+            board = new Bitboard(Fen.parse(fen));
+            applied = 0;
+        }
+
+        this.fen = fen;
+        this.moves = uciMoves.clone();
+
+        for (int i = applied; i < uciMoves.length; i++) {
+            final int move = board.resolve(uciMoves[i]);
+
+            if (move == MoveConstants.NO_MOVE) {
+                final UciMove[] history = this.moves;
+
+                board = null;
+                this.moves = new UciMove[0];
+
+                throw new IllegalStateException("Seemingly the opponent tried play an illegal move, this is probably a bug in the move generator. Move history was " + Arrays
+                        .toString(history));
+            }
+
+            board.make(move);
+        }
+
+        return board;
+    }
+
+    public void reset() {
+        fen = null;
+        moves = new UciMove[0];
+        board = null;
+    }
+
+    private boolean extendsApplied(final UciMove[] uciMoves) {
+        if (uciMoves.length < moves.length) {
+            return false;
+        }
+
+        for (int i = 0; i < moves.length; i++) {
+            if (!moves[i].equals(uciMoves[i])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -1,33 +1,122 @@
 package net.marvk.chess.core;
 
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import net.marvk.chess.core.bitboards.Bitboard;
+import net.marvk.chess.core.bitboards.MoveConstants;
 
 import java.util.Arrays;
-import java.util.regex.Pattern;
 
+/**
+ * Moves are interned, every combination of source square, target square and promotion piece has exactly one instance,
+ * so parsing and converting moves does not allocate.
+ */
 @Data
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class UciMove {
-    private static final Pattern SPLIT_PATTERN = Pattern.compile("(?<=\\G..)");
+    private static final Piece[] PROMOTIONS = {null, Piece.KNIGHT, Piece.BISHOP, Piece.ROOK, Piece.QUEEN};
+    private static final Square[] SQUARES = new Square[64];
+    private static final UciMove[] MOVES = new UciMove[64 * 64 * PROMOTIONS.length];
+
+    static {
+        for (final Square square : Square.values()) {
+            SQUARES[square.getBitboardIndex()] = square;
+        }
+
+        for (int source = 0; source < 64; source++) {
+            for (int target = 0; target < 64; target++) {
+                for (int promotion = 0; promotion < PROMOTIONS.length; promotion++) {
+                    MOVES[index(source, target, promotion)] = new UciMove(SQUARES[source], SQUARES[target], PROMOTIONS[promotion]);
+                }
+            }
+        }
+    }
+
     private final Square source;
     private final Square target;
     private final Piece promote;
 
+    /**
+     * @param promote the promotion piece, {@code null} if the move is not a promotion
+     * @throws IllegalArgumentException if {@code promote} is a pawn or a king
+     */
+    public static UciMove of(final Square source, final Square target, final Piece promote) {
+        return MOVES[index(source.getBitboardIndex(), target.getBitboardIndex(), promotionIndex(promote))];
+    }
+
     public static UciMove parse(final String uciMove) {
-        final String[] split = SPLIT_PATTERN.split(uciMove);
+        final int length = uciMove.length();
 
-        final Square source = Square.getSquareFromFen(split[0]);
-        final Square target = Square.getSquareFromFen(split[1]);
+        if (length != 4 && length != 5) {
+            throw invalid(uciMove);
+        }
+
+        final int source = squareIndex(uciMove, 0);
+        final int target = squareIndex(uciMove, 2);
 
-        final Piece promotion;
+        final int promotion;
 
-        if (split.length > 2) {
-            promotion = ColoredPiece.getPieceFromSan(split[2].charAt(0)).getPiece();
+        if (length == 5) {
+            promotion = promotionIndex(uciMove, Character.toLowerCase(uciMove.charAt(4)));
         } else {
-            promotion = null;
+            promotion = 0;
         }
 
-        return new UciMove(source, target, promotion);
+        return MOVES[index(source, target, promotion)];
+    }
+
+    private static int index(final int source, final int target, final int promotion) {
+        return (source * 64 + target) * PROMOTIONS.length + promotion;
+    }
+
+    private static int squareIndex(final String uciMove, final int start) {
+        final char file = uciMove.charAt(start);
+        final char rank = uciMove.charAt(start + 1);
+
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            throw invalid(uciMove);
+        }
+
+        return (rank - '1') * 8 + (file - 'a');
+    }
+
+    private static int promotionIndex(final Piece promote) {
+        if (promote == null) {
+            return 0;
+        }
+
+        switch (promote) {
+            case KNIGHT:
+                return 1;
+            case BISHOP:
+                return 2;
+            case ROOK:
+                return 3;
+            case QUEEN:
+                return 4;
+            default:
+                throw new IllegalArgumentException("Illegal promotion piece " + promote);
+        }
+    }
+
+    private static int promotionIndex(final String uciMove, final char promote) {
+        switch (promote) {
+            case 'n':
+                return 1;
+            case 'b':
+                return 2;
+            case 'r':
+                return 3;
+            case 'q':
+                return 4;
+            default:
+                throw invalid(uciMove);
+        }
+    }
+
+    private static IllegalArgumentException invalid(final String uciMove) {
+        return new IllegalArgumentException("Input string is not a valid UCI move: " + uciMove);
     }
 
     public static UciMove[] parseLine(final String line) {
@@ -40,13 +129,12 @@ public class UciMove {
 
     private static Bitboard getBoard(final UciMove[] uciMoves, final Bitboard startingBoard) {
         for (final UciMove uciMove : uciMoves) {
-            final Bitboard.BBMove move =
-                    startingBoard.generatePseudoLegalMoves()
-                                 .stream()
-                                 .filter(p -> p.asUciMove().equals(uciMove))
-                                 .findFirst()
-                                 .orElseThrow(() -> new IllegalStateException("Seemingly the opponent tried play an illegal move, this is probably a bug in the move generator. Move history was " + Arrays
-                                         .toString(uciMoves)));
+            final int move = startingBoard.resolve(uciMove);
+
+            if (move == MoveConstants.NO_MOVE) {
+                throw new IllegalStateException("Seemingly the opponent tried play an illegal move, this is probably a bug in the move generator. Move history was " + Arrays
+                        .toString(uciMoves));
+            }
 
             startingBoard.make(move);
         }
@@ -1,12 +1,10 @@
 package net.marvk.chess.core.bitboards;
 
-import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import net.marvk.chess.core.*;
 
+import java.nio.ByteBuffer;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.IntStream;
 
 import static net.marvk.chess.core.bitboards.MoveConstants.*;
@@ -34,6 +32,11 @@ public class Bitboard {
     private static final int KNIGHT_VALUE = 320;
     private static final int PAWN_VALUE = 100;
 
+    /**
+     * Piece values of the static exchange evaluation, indexed by the piece constants of {@link MoveConstants}
+     */
+    private static final int[] SEE_VALUES = {0, PAWN_VALUE, KNIGHT_VALUE, BISHOP_VALUE, ROOK_VALUE, QUEEN_VALUE, 20_000};
+
     static {
         SQUARES = new Square[64];
 
@@ -66,6 +69,49 @@ public class Bitboard {
         }
     }
 
+    private static final ColoredPiece[][] COLORED_PIECES = {
+            {null, ColoredPiece.WHITE_PAWN, ColoredPiece.WHITE_KNIGHT, ColoredPiece.WHITE_BISHOP, ColoredPiece.WHITE_ROOK, ColoredPiece.WHITE_QUEEN, ColoredPiece.WHITE_KING},
+            {null, ColoredPiece.BLACK_PAWN, ColoredPiece.BLACK_KNIGHT, ColoredPiece.BLACK_BISHOP, ColoredPiece.BLACK_ROOK, ColoredPiece.BLACK_QUEEN, ColoredPiece.BLACK_KING}
+    };
+
+    /**
+     * If set, every {@link #make(int)} and {@link #unmake(int)} validates the incremental zobrist hash against
+     * {@link #computeZobristHash()}. Only intended for debugging.
+     */
+    private static boolean zobristVerification;
+
+    /**
+     * Layout of the irreversible state saved on the undo stack by {@link #make(int)}
+     */
+    private static final int UNDO_WHITE_KING_SIDE_CASTLE_MASK = 0x1;
+    private static final int UNDO_WHITE_QUEEN_SIDE_CASTLE_MASK = 0x2;
+    private static final int UNDO_BLACK_KING_SIDE_CASTLE_MASK = 0x4;
+    private static final int UNDO_BLACK_QUEEN_SIDE_CASTLE_MASK = 0x8;
+    private static final int UNDO_EN_PASSANT_SQUARE_INDEX_SHIFT = 4;
+    private static final int UNDO_EN_PASSANT_SQUARE_INDEX_MASK = 0x3f << UNDO_EN_PASSANT_SQUARE_INDEX_SHIFT;
+    private static final int UNDO_HALFMOVE_SHIFT = 10;
+
+    private static final int INITIAL_UNDO_CAPACITY = 128;
+
+    private static final int GENERATE_ALL = 0;
+    private static final int GENERATE_ATTACKS = 1;
+    private static final int GENERATE_TACTICAL = 2;
+    private static final int GENERATE_QUIET = 3;
+
+    private static final int MAILBOX_COLOR_SHIFT = 3;
+    private static final int MAILBOX_PIECE_MASK = 0b111;
+
+    /**
+     * Offsets of the bitboards of a color in {@link #pieces}
+     */
+    private static final int WHITE_PIECES = WHITE << MAILBOX_COLOR_SHIFT;
+    private static final int BLACK_PIECES = BLACK << MAILBOX_COLOR_SHIFT;
+
+    /**
+     * Index of the occupancy of a color in {@link #pieces} relative to the offset of the color, never a piece
+     */
+    private static final int OCCUPANCY = 7;
+
     private static final Piece[] PIECES = {
             null,
             Piece.PAWN,
@@ -76,6 +122,27 @@ public class Bitboard {
             Piece.KING
     };
 
+    /**
+     * FEN letter of every mailbox value, {@code 0} for empty or unused values
+     */
+    private static final char[] FEN_PIECES = {
+            0, 'P', 'N', 'B', 'R', 'Q', 'K', 0,
+            0, 'p', 'n', 'b', 'r', 'q', 'k', 0
+    };
+
+    /**
+     * Mailbox value of every FEN letter, {@link MoveConstants#NO_PIECE} for any other character
+     */
+    private static final byte[] FEN_PIECE_VALUES = new byte[128];
+
+    static {
+        for (int value = 0; value < FEN_PIECES.length; value++) {
+            if (FEN_PIECES[value] != 0) {
+                FEN_PIECE_VALUES[FEN_PIECES[value]] = (byte) value;
+            }
+        }
+    }
+
     private static final int[] BLACK_KING_TABLE_LATE = {
             -50, -40, -30, -20, -20, -30, -40, -50,
             -30, -20, -10, 0, 0, -10, -20, -30,
@@ -200,17 +267,110 @@ public class Bitboard {
                         .toArray();
     }
 
-    private static final long WHITE_QUEEN_SIDE_CASTLE_OCCUPANCY = bitwiseOr(Square.B1, Square.C1, Square.D1);
-    private static final long WHITE_KING_SIDE_CASTLE_OCCUPANCY = bitwiseOr(Square.F1, Square.G1);
-    private static final long BLACK_QUEEN_SIDE_CASTLE_OCCUPANCY = bitwiseOr(Square.B8, Square.C8, Square.D8);
-    private static final long BLACK_KING_SIDE_CASTLE_OCCUPANCY = bitwiseOr(Square.F8, Square.G8);
-
     private static final long RANK_ONE_SQUARES = getRankSquares(Rank.RANK_1);
     private static final long RANK_TWO_SQUARES = getRankSquares(Rank.RANK_2);
 
     private static final long RANK_SEVEN_SQUARES = getRankSquares(Rank.RANK_7);
     private static final long RANK_EIGHT_SQUARES = getRankSquares(Rank.RANK_8);
 
+    private static final long FILE_A_SQUARES = getFileSquares(File.FILE_A);
+    private static final long FILE_H_SQUARES = getFileSquares(File.FILE_H);
+
+    // The following tables are indexed by color, WHITE and BLACK of MoveConstants
+
+    private static final long[] QUEEN_SIDE_CASTLE_OCCUPANCY = {
+            bitwiseOr(Square.B1, Square.C1, Square.D1),
+            bitwiseOr(Square.B8, Square.C8, Square.D8)
+    };
+    private static final long[] KING_SIDE_CASTLE_OCCUPANCY = {
+            bitwiseOr(Square.F1, Square.G1),
+            bitwiseOr(Square.F8, Square.G8)
+    };
+
+    /**
+     * Squares that must not be attacked for castling, the king source, passed and target square
+     */
+    private static final long[] QUEEN_SIDE_CASTLE_PATH = {
+            bitwiseOr(Square.E1, Square.D1, Square.C1),
+            bitwiseOr(Square.E8, Square.D8, Square.C8)
+    };
+    private static final long[] KING_SIDE_CASTLE_PATH = {
+            bitwiseOr(Square.E1, Square.F1, Square.G1),
+            bitwiseOr(Square.E8, Square.F8, Square.G8)
+    };
+
+    private static final Square[] KING_SQUARES = {Square.E1, Square.E8};
+    private static final Square[] QUEEN_SIDE_CASTLE_TARGETS = {Square.C1, Square.C8};
+    private static final Square[] KING_SIDE_CASTLE_TARGETS = {Square.G1, Square.G8};
+
+    private static final int[] KING_SQUARE_INDICES = {E1, E8};
+    private static final int[] QUEEN_SIDE_ROOK_SQUARE_INDICES = {A1, A8};
+    private static final int[] KING_SIDE_ROOK_SQUARE_INDICES = {H1, H8};
+
+    private static final long[] QUEEN_SIDE_CASTLE_HASHES = {ZobristHashing.whiteQueenCastleHash(), ZobristHashing.blackQueenCastleHash()};
+    private static final long[] KING_SIDE_CASTLE_HASHES = {ZobristHashing.whiteKingCastleHash(), ZobristHashing.blackKingCastleHash()};
+
+    private static final long[][] PAWN_ATTACKS = {WHITE_PAWN_ATTACKS, BLACK_PAWN_ATTACKS};
+    private static final long[] PROMOTION_RANKS = {RANK_EIGHT_SQUARES, RANK_ONE_SQUARES};
+    private static final long[] DOUBLE_PUSH_SOURCE_RANKS = {RANK_TWO_SQUARES, RANK_SEVEN_SQUARES};
+
+    /**
+     * Square index offset of a single pawn push
+     */
+    static final int[] PAWN_PUSH_OFFSETS = {8, -8};
+
+    /**
+     * Left rotation of a bitboard that pushes all pawns by one square, pawns never wrap around since they are never on
+     * the first or last rank
+     */
+    private static final int[] PAWN_PUSH_ROTATIONS = {8, 56};
+
+    /**
+     * Left rotations of a bitboard that move all pawns one square diagonally forward towards the a-file and the
+     * h-file, pawns on the a-file and the h-file respectively have to be masked out before rotating
+     */
+    private static final int[] PAWN_WEST_CAPTURE_ROTATIONS = {7, 55};
+    private static final int[] PAWN_EAST_CAPTURE_ROTATIONS = {9, 57};
+
+    /**
+     * Attack lookup of the sliding pieces, selected once per JVM, see {@link SlidingAttacks#BACKEND_PROPERTY}
+     */
+    private static final SlidingAttacks SLIDING_ATTACKS = SlidingAttacks.fromSystemProperty();
+
+    /**
+     * Squares strictly between two squares on a shared rank, file or diagonal, {@code 0L} if there is no such line
+     */
+    private static final long[][] BETWEEN;
+
+    /**
+     * Full rank, file or diagonal through two squares, including both squares, {@code 0L} if there is no such line
+     */
+    private static final long[][] LINE;
+
+    static {
+        BETWEEN = new long[64][64];
+        LINE = new long[64][64];
+
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                if (from == to) {
+                    continue;
+                }
+
+                final long fromSquare = 1L << from;
+                final long toSquare = 1L << to;
+
+                if ((SLIDING_ATTACKS.rookAttacks(0L, from) & toSquare) != 0L) {
+                    BETWEEN[from][to] = SLIDING_ATTACKS.rookAttacks(toSquare, from) & SLIDING_ATTACKS.rookAttacks(fromSquare, to);
+                    LINE[from][to] = (SLIDING_ATTACKS.rookAttacks(0L, from) & SLIDING_ATTACKS.rookAttacks(0L, to)) | fromSquare | toSquare;
+                } else if ((SLIDING_ATTACKS.bishopAttacks(0L, from) & toSquare) != 0L) {
+                    BETWEEN[from][to] = SLIDING_ATTACKS.bishopAttacks(toSquare, from) & SLIDING_ATTACKS.bishopAttacks(fromSquare, to);
+                    LINE[from][to] = (SLIDING_ATTACKS.bishopAttacks(0L, from) & SLIDING_ATTACKS.bishopAttacks(0L, to)) | fromSquare | toSquare;
+                }
+            }
+        }
+    }
+
     private static long bitwiseOr(final Square... squares) {
         return Arrays.stream(squares).mapToLong(Square::getOccupiedBitMask).reduce(0L, (l1, l2) -> l1 | l2);
     }
@@ -222,6 +382,13 @@ public class Bitboard {
                      .reduce(0L, (l1, l2) -> l1 | l2);
     }
 
+    private static long getFileSquares(final File file) {
+        return Arrays.stream(SQUARES)
+                     .filter(square -> square.getFile() == file)
+                     .mapToLong(Square::getOccupiedBitMask)
+                     .reduce(0L, (l1, l2) -> l1 | l2);
+    }
+
     private static long staticAttacks(final Collection<Direction> directions, final Square square) {
         return directions.stream()
                          .map(square::translate)
@@ -240,16 +407,62 @@ public class Bitboard {
     //    _| |_| |\  |_| |_   | |   _| |_ / ____ \| |____ _| |_ / /__ / ____ \| |   _| || |__| | |\  |
     //   |_____|_| \_|_____|  |_|  |_____/_/    \_\______|_____/_____/_/    \_\_|  |_____\____/|_| \_|
 
-    private final PlayerBoard black;
-    private final PlayerBoard white;
+    /**
+     * Occupancy of every piece of both colors, indexed by {@code color << 3 | piece} like the values of
+     * {@link #mailbox}, and the occupancy of every color at {@code color << 3 | }{@link #OCCUPANCY}. Index
+     * {@code color << 3 | }{@link MoveConstants#NO_PIECE} is unused.
+     */
+    private final long[] pieces;
+
+    /**
+     * Castling rights, indexed by color
+     */
+    private final boolean[] kingSideCastle;
+    private final boolean[] queenSideCastle;
 
     private Color turn;
     private long enPassant = 0L;
 
+    private long occupancy;
+
+    /**
+     * Squares attacked by each player, indexed by color, computed on demand and only valid if the player's bit is set
+     * in {@link #validAttackMaps}. Invalidated by {@link #make(int)} and {@link #unmake(int)}.
+     */
+    private final long[] attackMaps;
+    private int validAttackMaps;
+
+    /**
+     * Squares from which each piece of the active player would attack the opponent king, indexed by piece, and the
+     * pieces of the active player whose move may uncover a slider on the opponent king. Computed on demand by
+     * {@link #givesCheck(int)} and invalidated together with {@link #attackMaps}.
+     */
+    private final long[] checkSquares = new long[7];
+    private long discoveredCheckCandidates;
+    private boolean validCheckSquares;
+
     private int fullmoveClock;
     private int halfmoveClock;
 
-//    private long zobristHash;
+    private final MoveGenerator moveGenerator = new MoveGenerator();
+    private final int[] seeGains = new int[33];
+    private MoveList adapterMoveList;
+
+    private long zobristHash;
+
+    /**
+     * Irreversible state and zobrist hash of the positions before every move made by {@link #make(int)} that has not
+     * been unmade yet, indexed by ply. Allocated on the first move and grown on demand, copies only take the used
+     * part.
+     */
+    private int[] undoStates;
+    private long[] undoHashes;
+    private int ply;
+
+    /**
+     * Piece on every square, {@code color << 3 | piece} or {@link MoveConstants#NO_PIECE} if the square is empty
+     */
+    private final byte[] mailbox;
 
     /**
      * Copy constructor
@@ -257,8 +470,14 @@ public class Bitboard {
      * @param previous the board to be copied
      */
     public Bitboard(final Bitboard previous) {
-        this.white = new PlayerBoard(previous.white);
-        this.black = new PlayerBoard(previous.black);
+        this.pieces = previous.pieces.clone();
+        this.kingSideCastle = previous.kingSideCastle.clone();
+        this.queenSideCastle = previous.queenSideCastle.clone();
+        this.mailbox = previous.mailbox.clone();
+        this.occupancy = previous.occupancy;
+
+        this.attackMaps = previous.attackMaps.clone();
+        this.validAttackMaps = previous.validAttackMaps;
 
         this.turn = previous.turn;
         this.enPassant = previous.enPassant;
@@ -266,100 +485,87 @@ public class Bitboard {
         this.fullmoveClock = previous.fullmoveClock;
         this.halfmoveClock = previous.halfmoveClock;
 
-//        this.zobristHash = zobristHash();
+        this.zobristHash = previous.zobristHash;
+
+        this.undoStates = Arrays.copyOf(previous.undoStates, previous.ply);
+        this.undoHashes = Arrays.copyOf(previous.undoHashes, previous.ply);
+        this.ply = previous.ply;
+    }
+
+    /**
+     * @param snapshot the position
+     * @see #load(PositionSnapshot)
+     */
+    public Bitboard(final PositionSnapshot snapshot) {
+        this.pieces = new long[16];
+        this.kingSideCastle = new boolean[2];
+        this.queenSideCastle = new boolean[2];
+        this.attackMaps = new long[2];
+        this.mailbox = new byte[64];
+        this.undoStates = new int[0];
+        this.undoHashes = new long[0];
+
+        load(snapshot);
     }
 
     public Bitboard(final Fen fen) {
-        this.white = new PlayerBoard();
-        this.black = new PlayerBoard();
+        this.pieces = new long[16];
+        this.kingSideCastle = new boolean[2];
+        this.queenSideCastle = new boolean[2];
+        this.attackMaps = new long[2];
+        this.mailbox = new byte[64];
+        this.undoStates = new int[0];
+        this.undoHashes = new long[0];
+
+        fen.load(this);
+    }
 
-        turn = Color.getColorFromFen(fen.getActiveColor());
-        halfmoveClock = Integer.parseInt(fen.getHalfmoveClock());
-        fullmoveClock = Integer.parseInt(fen.getFullmoveClock());
+    /**
+     * Replaces this position with the last position parsed by {@code fen}, for example to convert positions in bulk
+     * with one board and one parser. Clears the undo stack, moves made before cannot be unmade.
+     *
+     * @param fen the parser
+     */
+    public void load(final FenParser fen) {
+        for (int piece = PAWN; piece <= KING; piece++) {
+            pieces[WHITE_PIECES | piece] = 0L;
+            pieces[BLACK_PIECES | piece] = 0L;
+        }
 
-        fen.getCastlingAvailability().chars().forEach(e -> {
-            if (e == 'K') {
-                white.kingSideCastle = true;
-            } else if (e == 'Q') {
-                white.queenSideCastle = true;
-            } else if (e == 'k') {
-                black.kingSideCastle = true;
-            } else if (e == 'q') {
-                black.queenSideCastle = true;
-            }
-        });
+        for (int index = 0; index < 64; index++) {
+            final byte value = FEN_PIECE_VALUES[fen.getPiece(index)];
 
-        final Square squareFromFen = Square.getSquareFromFen(fen.getEnPassantTargetSquare());
+            mailbox[index] = value;
 
-        if (squareFromFen != null) {
-            enPassant = squareFromFen.getOccupiedBitMask();
+            if (value != NO_PIECE) {
+                pieces[value] |= 1L << index;
+            }
         }
 
-        loadFen(fen);
+        resetOccupancy(WHITE_PIECES);
+        resetOccupancy(BLACK_PIECES);
+        occupancy = pieces[WHITE_PIECES | OCCUPANCY] | pieces[BLACK_PIECES | OCCUPANCY];
 
-//        this.zobristHash = zobristHash();
-    }
+        final int castlingAvailability = fen.getCastlingAvailability();
 
-    private void loadFen(final Fen fen) {
-        final String[] split = fen.getPiecePlacement().split("/");
+        kingSideCastle[WHITE] = (castlingAvailability & FenParser.WHITE_KING_SIDE_CASTLE) != 0;
+        queenSideCastle[WHITE] = (castlingAvailability & FenParser.WHITE_QUEEN_SIDE_CASTLE) != 0;
+        kingSideCastle[BLACK] = (castlingAvailability & FenParser.BLACK_KING_SIDE_CASTLE) != 0;
+        queenSideCastle[BLACK] = (castlingAvailability & FenParser.BLACK_QUEEN_SIDE_CASTLE) != 0;
 
-        for (int i = 0; i < split.length; i++) {
-            final String line = split[8 - i - 1];
+        turn = fen.isWhiteToMove() ? Color.WHITE : Color.BLACK;
 
-            for (int j = 0, lineIndex = 0; j < line.length(); j++) {
-                final char c = line.charAt(j);
+        final int enPassantSquareIndex = fen.getEnPassantSquareIndex();
+        enPassant = enPassantSquareIndex < 0 ? 0L : 1L << enPassantSquareIndex;
 
-                if (Character.isDigit(c)) {
-                    lineIndex += c - '0';
-                    continue;
-                }
+        halfmoveClock = fen.getHalfmoveClock();
+        fullmoveClock = fen.getFullmoveClock();
 
-                final int index = i * 8 + lineIndex;
-
-                final long shift = 1L << index;
-
-                switch (c) {
-                    case 'k':
-                        black.kings |= shift;
-                        break;
-                    case 'K':
-                        white.kings |= shift;
-                        break;
-                    case 'q':
-                        black.queens |= shift;
-                        break;
-                    case 'Q':
-                        white.queens |= shift;
-                        break;
-                    case 'r':
-                        black.rooks |= shift;
-                        break;
-                    case 'R':
-                        white.rooks |= shift;
-                        break;
-                    case 'b':
-                        black.bishops |= shift;
-                        break;
-                    case 'B':
-                        white.bishops |= shift;
-                        break;
-                    case 'n':
-                        black.knights |= shift;
-                        break;
-                    case 'N':
-                        white.knights |= shift;
-                        break;
-                    case 'p':
-                        black.pawns |= shift;
-                        break;
-                    case 'P':
-                        white.pawns |= shift;
-                        break;
-                }
+        zobristHash = computeZobristHash();
 
-                lineIndex++;
-            }
-        }
+        validAttackMaps = 0;
+        validCheckSquares = false;
+        ply = 0;
     }
 
     // endregion
@@ -387,19 +593,215 @@ public class Bitboard {
     public boolean canCastleKingSide(final Color color) {
         Objects.requireNonNull(color);
 
-        return color == Color.WHITE ? white.kingSideCastle : black.kingSideCastle;
+        return color == Color.WHITE ? kingSideCastle[WHITE] : kingSideCastle[BLACK];
     }
 
     public boolean canCastleQueenSide(final Color color) {
         Objects.requireNonNull(color);
 
-        return color == Color.WHITE ? white.queenSideCastle : black.queenSideCastle;
+        return color == Color.WHITE ? queenSideCastle[WHITE] : queenSideCastle[BLACK];
     }
 
     public Square getEnPassant() {
         return enPassant == 0L ? null : SQUARES[Long.numberOfTrailingZeros(enPassant)];
     }
 
+    /**
+     * @return a snapshot of this position
+     */
+    public PositionSnapshot snapshot() {
+        final PositionSnapshot result = new PositionSnapshot();
+        snapshot(result);
+        return result;
+    }
+
+    /**
+     * Writes this position into {@code target} without allocating.
+     *
+     * @param target the snapshot to be overwritten
+     */
+    public void snapshot(final PositionSnapshot target) {
+        target.set(
+                pieces[WHITE_PIECES | OCCUPANCY],
+                pieces[BLACK_PIECES | OCCUPANCY],
+                pieces[WHITE_PIECES | PAWN] | pieces[BLACK_PIECES | PAWN],
+                pieces[WHITE_PIECES | KNIGHT] | pieces[BLACK_PIECES | KNIGHT],
+                pieces[WHITE_PIECES | BISHOP] | pieces[BLACK_PIECES | BISHOP],
+                pieces[WHITE_PIECES | ROOK] | pieces[BLACK_PIECES | ROOK],
+                pieces[WHITE_PIECES | QUEEN] | pieces[BLACK_PIECES | QUEEN],
+                pieces[WHITE_PIECES | KING] | pieces[BLACK_PIECES | KING],
+                turn == Color.WHITE ? WHITE : BLACK,
+                kingSideCastle[WHITE],
+                queenSideCastle[WHITE],
+                kingSideCastle[BLACK],
+                queenSideCastle[BLACK],
+                enPassant == 0L ? 0 : Long.numberOfTrailingZeros(enPassant),
+                halfmoveClock,
+                fullmoveClock,
+                zobristHash
+        );
+    }
+
+    /**
+     * Replaces this position with {@code snapshot}, for example to generate the moves of a snapshot. Clears the undo
+     * stack, moves made before cannot be unmade.
+     *
+     * @param snapshot the position to be loaded
+     */
+    public void load(final PositionSnapshot snapshot) {
+        for (int piece = PAWN; piece <= KING; piece++) {
+            final long piecesOfType = snapshot.pieces(piece);
+
+            pieces[WHITE_PIECES | piece] = piecesOfType & snapshot.white;
+            pieces[BLACK_PIECES | piece] = piecesOfType & snapshot.black;
+        }
+
+        pieces[WHITE_PIECES | OCCUPANCY] = snapshot.white;
+        pieces[BLACK_PIECES | OCCUPANCY] = snapshot.black;
+        occupancy = snapshot.white | snapshot.black;
+
+        kingSideCastle[WHITE] = snapshot.whiteKingSideCastle();
+        queenSideCastle[WHITE] = snapshot.whiteQueenSideCastle();
+        kingSideCastle[BLACK] = snapshot.blackKingSideCastle();
+        queenSideCastle[BLACK] = snapshot.blackQueenSideCastle();
+
+        turn = snapshot.color() == WHITE ? Color.WHITE : Color.BLACK;
+
+        final int enPassantSquareIndex = snapshot.enPassantSquareIndex();
+        enPassant = enPassantSquareIndex == 0 ? 0L : 1L << enPassantSquareIndex;
+
+        halfmoveClock = snapshot.halfmoveClock();
+        fullmoveClock = snapshot.fullmoveClock();
+
+        zobristHash = snapshot.zobristHash;
+
+        Arrays.fill(mailbox, (byte) NO_PIECE);
+        loadMailbox(WHITE);
+        loadMailbox(BLACK);
+
+        validAttackMaps = 0;
+        validCheckSquares = false;
+        ply = 0;
+    }
+
+    /**
+     * Writes this position in the format of {@link PositionCodec} at the position of {@code target}.
+     *
+     * @throws IllegalArgumentException if the position does not fit the format
+     */
+    void encode(final ByteBuffer target) {
+        if (Long.bitCount(occupancy) > PositionCodec.MAX_PIECES) {
+            throw new IllegalArgumentException("Position has more than " + PositionCodec.MAX_PIECES + " pieces: " + fen());
+        }
+
+        if (halfmoveClock < 0 || halfmoveClock > PositionCodec.MAX_HALFMOVE_CLOCK || fullmoveClock < 0) {
+            throw new IllegalArgumentException("Clocks do not fit the binary format: " + fen());
+        }
+
+        long firstPieces = 0L;
+        long secondPieces = 0L;
+
+        long remaining = occupancy;
+
+        for (int i = 0; remaining != 0L; i++) {
+            final int index = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1L;
+
+            final long value = (long) mailbox[index] << ((i & 15) << 2);
+
+            if (i < 16) {
+                firstPieces |= value;
+            } else {
+                secondPieces |= value;
+            }
+        }
+
+        final long state = PositionSnapshot.state(
+                turn == Color.WHITE ? WHITE : BLACK,
+                kingSideCastle[WHITE],
+                queenSideCastle[WHITE],
+                kingSideCastle[BLACK],
+                queenSideCastle[BLACK],
+                enPassant == 0L ? 0 : Long.numberOfTrailingZeros(enPassant),
+                halfmoveClock,
+                fullmoveClock
+        );
+
+        target.putLong(occupancy);
+        target.putLong(firstPieces);
+        target.putLong(secondPieces);
+        target.putLong(state);
+    }
+
+    /**
+     * Replaces this position with the one in the format of {@link PositionCodec} at the position of {@code source}.
+     * Clears the undo stack, moves made before cannot be unmade.
+     *
+     * @throws IllegalArgumentException if the input is not a position in the format
+     */
+    void decode(final ByteBuffer source) {
+        final long occupied = source.getLong();
+        final long firstPieces = source.getLong();
+        final long secondPieces = source.getLong();
+        final long state = source.getLong();
+
+        final int pieceCount = Long.bitCount(occupied);
+
+        if (pieceCount > PositionCodec.MAX_PIECES) {
+            throw new IllegalArgumentException("Encoded position has more than " + PositionCodec.MAX_PIECES + " pieces");
+        }
+
+        for (int i = 0; i < pieceCount; i++) {
+            final int piece = (int) (((i < 16 ? firstPieces : secondPieces) >>> ((i & 15) << 2)) & MAILBOX_PIECE_MASK);
+
+            if (piece < PAWN || piece > KING) {
+                throw new IllegalArgumentException("Encoded position has an unknown piece on its " + (i + 1) + ". occupied square");
+            }
+        }
+
+        for (int piece = PAWN; piece <= KING; piece++) {
+            pieces[WHITE_PIECES | piece] = 0L;
+            pieces[BLACK_PIECES | piece] = 0L;
+        }
+
+        Arrays.fill(mailbox, (byte) NO_PIECE);
+
+        long remaining = occupied;
+
+        for (int i = 0; remaining != 0L; i++) {
+            final int index = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1L;
+
+            final int value = (int) (((i < 16 ? firstPieces : secondPieces) >>> ((i & 15) << 2)) & 0xfL);
+
+            mailbox[index] = (byte) value;
+            pieces[value] |= 1L << index;
+        }
+
+        resetOccupancy(WHITE_PIECES);
+        resetOccupancy(BLACK_PIECES);
+        occupancy = occupied;
+
+        kingSideCastle[WHITE] = (state & PositionSnapshot.WHITE_KING_SIDE_CASTLE_MASK) != 0L;
+        queenSideCastle[WHITE] = (state & PositionSnapshot.WHITE_QUEEN_SIDE_CASTLE_MASK) != 0L;
+        kingSideCastle[BLACK] = (state & PositionSnapshot.BLACK_KING_SIDE_CASTLE_MASK) != 0L;
+        queenSideCastle[BLACK] = (state & PositionSnapshot.BLACK_QUEEN_SIDE_CASTLE_MASK) != 0L;
+
+        turn = (state & PositionSnapshot.BLACKS_TURN_MASK) == 0L ? Color.WHITE : Color.BLACK;
+
+        final int enPassantSquareIndex = (int) ((state & PositionSnapshot.EN_PASSANT_SQUARE_INDEX_MASK) >>> PositionSnapshot.EN_PASSANT_SQUARE_INDEX_SHIFT);
+        enPassant = enPassantSquareIndex == 0 ? 0L : 1L << enPassantSquareIndex;
+
+        halfmoveClock = (int) ((state & PositionSnapshot.HALFMOVE_MASK) >>> PositionSnapshot.HALFMOVE_SHIFT);
+        fullmoveClock = (int) ((state & PositionSnapshot.FULLMOVE_MASK) >>> PositionSnapshot.FULLMOVE_SHIFT);
+
+        zobristHash = computeZobristHash();
+
+        validAttackMaps = 0;
+        validCheckSquares = false;
+        ply = 0;
+    }
+
     // endregion
 
     // region Move Generator
@@ -410,6 +812,24 @@ public class Bitboard {
     //   | |  | | |__| | \  /  | |____  | |__| | |____| |\  | |____| | \ \  / ____ \| | | |__| | | \ \
     //   |_|  |_|\____/   \/   |______|  \_____|______|_| \_|______|_|  \_\/_/    \_\_|  \____/|_|  \_\
 
+    public static boolean hasAnyLegalMoves(final Bitboard board, final MoveList moves) {
+        for (int i = 0; i < moves.size(); i++) {
+            final int move = moves.get(i);
+
+            board.make(move);
+
+            if (!board.isInvalidPosition()) {
+                board.unmake(move);
+
+                return true;
+            }
+
+            board.unmake(move);
+        }
+
+        return false;
+    }
+
     public static boolean hasAnyLegalMoves(final Bitboard board, final Collection<BBMove> moves) {
         for (final BBMove move : moves) {
             board.make(move);
@@ -437,147 +857,661 @@ public class Bitboard {
     }
 
     public List<BBMove> generatePseudoLegalMoves() {
-        return new MoveGenerator(false).getPseudoLegalMoves();
+        final MoveList moves = adapterMoveList();
+        generatePseudoLegalMoves(moves);
+        return moves.toBBMoves();
     }
 
     public List<BBMove> generatePseudoLegalAttackMoves() {
-        return new MoveGenerator(true).getPseudoLegalMoves();
+        final MoveList moves = adapterMoveList();
+        generatePseudoLegalAttackMoves(moves);
+        return moves.toBBMoves();
     }
 
-    private class MoveGenerator {
-        private final boolean onlyAttackMoves;
-        private final List<BBMove> result;
+    public List<BBMove> generateLegalMoves() {
+        final MoveList moves = adapterMoveList();
+        generateLegalMoves(moves);
+        return moves.toBBMoves();
+    }
+
+    public List<BBMove> generateLegalAttackMoves() {
+        final MoveList moves = adapterMoveList();
+        generateLegalAttackMoves(moves);
+        return moves.toBBMoves();
+    }
 
-        MoveGenerator(final boolean onlyAttackMoves) {
-            this.onlyAttackMoves = onlyAttackMoves;
-            this.result = new ArrayList<>();
+    private MoveList adapterMoveList() {
+        if (adapterMoveList == null) {
+            adapterMoveList = new MoveList();
         }
 
-        List<BBMove> getPseudoLegalMoves() {
-            final PlayerBoard self;
-            final long selfOccupancy;
-            final long opponentOccupancy;
+        return adapterMoveList;
+    }
 
-            if (turn == Color.WHITE) {
-                self = white;
-                selfOccupancy = white.occupancy();
-                opponentOccupancy = black.occupancy();
-            } else {
-                self = black;
-                selfOccupancy = black.occupancy();
-                opponentOccupancy = white.occupancy();
-            }
+    /**
+     * Generates all pseudo legal moves into {@code result} without allocating.
+     *
+     * @param result the list to be cleared and filled
+     */
+    public void generatePseudoLegalMoves(final MoveList result) {
+        moveGenerator.generate(result, GENERATE_ALL, false, -1L);
+    }
 
-            final long occupancy = selfOccupancy | opponentOccupancy;
+    /**
+     * Generates all pseudo legal attack moves into {@code result} without allocating.
+     *
+     * @param result the list to be cleared and filled
+     */
+    public void generatePseudoLegalAttackMoves(final MoveList result) {
+        moveGenerator.generate(result, GENERATE_ATTACKS, false, -1L);
+    }
 
-            slidingAttacks(self.queens, occupancy, selfOccupancy, MagicBitboard.ROOK, QUEEN);
-            slidingAttacks(self.rooks, occupancy, selfOccupancy, MagicBitboard.ROOK, ROOK);
-            slidingAttacks(self.queens, occupancy, selfOccupancy, MagicBitboard.BISHOP, QUEEN);
-            slidingAttacks(self.bishops, occupancy, selfOccupancy, MagicBitboard.BISHOP, BISHOP);
-            singleAttacks(self.knights, selfOccupancy, KNIGHT_ATTACKS, KNIGHT);
-            singleAttacks(self.kings, selfOccupancy, KING_ATTACKS, KING);
-            pawnAttacks(self.pawns, selfOccupancy, opponentOccupancy);
-            pawnMoves(self.pawns, occupancy);
-            castleMoves(self, occupancy);
+    /**
+     * Generates all legal moves into {@code result} without allocating. Unlike the pseudo legal generator, the moves
+     * do not have to be validated with {@link #isInvalidPosition()} after being made. Requires exactly one king of the
+     * active player.
+     *
+     * @param result the list to be cleared and filled
+     */
+    public void generateLegalMoves(final MoveList result) {
+        moveGenerator.generate(result, GENERATE_ALL, true, -1L);
+    }
 
-            return result;
-        }
+    /**
+     * Generates all legal attack moves into {@code result} without allocating.
+     *
+     * @param result the list to be cleared and filled
+     * @see #generateLegalMoves(MoveList)
+     */
+    public void generateLegalAttackMoves(final MoveList result) {
+        moveGenerator.generate(result, GENERATE_ATTACKS, true, -1L);
+    }
 
-        private void castleMoves(
-                final PlayerBoard self,
-                final long occupancy
-        ) {
-            if (turn == Color.WHITE && !isInCheck(Color.WHITE, Square.E1.getOccupiedBitMask(), black, occupancy)) {
-                if (self.queenSideCastle
-                        && (WHITE_QUEEN_SIDE_CASTLE_OCCUPANCY & occupancy) == 0L
-                        && !isInCheck(Color.WHITE, Square.C1.getOccupiedBitMask(), black, occupancy)
-                        && !isInCheck(Color.WHITE, Square.D1.getOccupiedBitMask(), black, occupancy)
-                ) {
-                    makeCastleMove(Square.E1, Square.C1);
-                }
+    /**
+     * Generates all legal captures and promotions into {@code result} without allocating.
+     *
+     * @param result the list to be cleared and filled
+     * @see #generateLegalMoves(MoveList)
+     */
+    public void generateLegalTacticalMoves(final MoveList result) {
+        moveGenerator.generate(result, GENERATE_TACTICAL, true, -1L);
+    }
 
-                if (self.kingSideCastle
-                        && (WHITE_KING_SIDE_CASTLE_OCCUPANCY & occupancy) == 0L
-                        && !isInCheck(Color.WHITE, Square.F1.getOccupiedBitMask(), black, occupancy)
-                        && !isInCheck(Color.WHITE, Square.G1.getOccupiedBitMask(), black, occupancy)
-                ) {
-                    makeCastleMove(Square.E1, Square.G1);
-                }
-            } else if (turn == Color.BLACK && !isInCheck(Color.BLACK, Square.E8.getOccupiedBitMask(), white, occupancy)) {
-                if (self.queenSideCastle
-                        && (BLACK_QUEEN_SIDE_CASTLE_OCCUPANCY & occupancy) == 0L
-                        && !isInCheck(Color.BLACK, Square.C8.getOccupiedBitMask(), white, occupancy)
-                        && !isInCheck(Color.BLACK, Square.D8.getOccupiedBitMask(), white, occupancy)
-                ) {
-                    makeCastleMove(Square.E8, Square.C8);
-                }
+    /**
+     * Generates all legal moves that are neither captures nor promotions into {@code result} without allocating.
+     *
+     * @param result the list to be cleared and filled
+     * @see #generateLegalMoves(MoveList)
+     */
+    public void generateLegalQuietMoves(final MoveList result) {
+        moveGenerator.generate(result, GENERATE_QUIET, true, -1L);
+    }
 
-                if (self.kingSideCastle
-                        && (BLACK_KING_SIDE_CASTLE_OCCUPANCY & occupancy) == 0L
-                        && !isInCheck(Color.BLACK, Square.F8.getOccupiedBitMask(), white, occupancy)
-                        && !isInCheck(Color.BLACK, Square.G8.getOccupiedBitMask(), white, occupancy)
-                ) {
-                    makeCastleMove(Square.E8, Square.G8);
-                }
-            }
+    /**
+     * Generates all legal moves resolving a check into {@code result} without allocating: king moves, captures of the
+     * checking piece and interpositions, or only king moves under double check. The legal generators use this
+     * automatically when the active player is in check.
+     *
+     * @param result the list to be cleared and filled
+     * @throws IllegalStateException if the active player is not in check
+     */
+    public void generateEvasions(final MoveList result) {
+        if (!isInCheck()) {
+            throw new IllegalStateException("Active player is not in check:\n" + fen());
         }
 
-        private void makeCastleMove(final Square kingSource, final Square kingTarget) {
-            makeBbMove(kingSource.getOccupiedBitMask(), kingTarget.getOccupiedBitMask(), KING, true, false, NO_PIECE, NO_SQUARE);
-        }
+        moveGenerator.generate(result, GENERATE_ALL, true, -1L);
+    }
 
-        private void pawnMoves(
-                final long pawns,
-                final long fullOccupancy
-        ) {
-            long remainingPawns = pawns;
+    /**
+     * Finds the legal move of this position with the same source square, target square and promotion piece as
+     * {@code move}, which may stem from a different position, for example a hash move.
+     *
+     * @param move the move to look up
+     * @return the move encoded for this position, or {@link MoveConstants#NO_MOVE} if it is not legal in this position
+     * @see #resolve(int, int, int)
+     */
+    public int resolveLegalMove(final int move) {
+        return resolve(
+                (move & SOURCE_SQUARE_INDEX_MASK) >> SOURCE_SQUARE_INDEX_SHIFT,
+                (move & TARGET_SQUARE_INDEX_MASK) >> TARGET_SQUARE_INDEX_SHIFT,
+                (move & PROMOTION_PIECE_MASK) >> PROMOTION_PIECE_SHIFT
+        );
+    }
 
-            while (remainingPawns != 0L) {
-                final long source = Long.highestOneBit(remainingPawns);
-                remainingPawns &= ~source;
+    /**
+     * @param move a move of the active player encoded for this position
+     * @return {@code move} with the move order values the move generators assign to it
+     */
+    BBMove scoredMove(final int move) {
+        final int color = turn == Color.WHITE ? WHITE : BLACK;
+        final int pieceMoved = (move & PIECE_MOVED_MASK) >> PIECE_MOVED_SHIFT;
+        final int pieceAttacked = (move & PIECE_ATTACKED_MASK) >> PIECE_ATTACKED_SHIFT;
+        final int sourceSquareIndex = (move & SOURCE_SQUARE_INDEX_MASK) >> SOURCE_SQUARE_INDEX_SHIFT;
+        final int targetSquareIndex = (move & TARGET_SQUARE_INDEX_MASK) >> TARGET_SQUARE_INDEX_SHIFT;
 
-                final long singleMoveTarget;
-                final long promoteRank;
+        final int mvvLva = mvvLva(pieceMoved, pieceAttacked);
 
-                final boolean whiteTurn = turn == Color.WHITE;
+        return new BBMove(move, mvvLva, mvvLva + squareDiff(color, pieceMoved, sourceSquareIndex, targetSquareIndex));
+    }
 
-                if (whiteTurn) {
-                    singleMoveTarget = source << 8;
-                    promoteRank = RANK_EIGHT_SQUARES;
-                } else {
-                    singleMoveTarget = source >> 8;
-                    promoteRank = RANK_ONE_SQUARES;
+    private int squareDiff(final int color, final int pieceMoved, final int sourceSquareIndex, final int targetSquareIndex) {
+        final int gameStage = (pieces[WHITE_PIECES | QUEEN] | pieces[BLACK_PIECES | QUEEN]) == 0L ? 1 : 0;
+
+        return PIECE_SQUARE_VALUES[color][pieceMoved][gameStage][targetSquareIndex]
+                - PIECE_SQUARE_VALUES[color][pieceMoved][gameStage][sourceSquareIndex];
+    }
+
+    /**
+     * Finds the legal move of this position described by {@code uciMove}.
+     *
+     * @param uciMove the move to look up
+     * @return the move encoded for this position, or {@link MoveConstants#NO_MOVE} if it is not legal in this position
+     * @see #resolve(int, int, int)
+     */
+    public int resolve(final UciMove uciMove) {
+        return resolve(
+                uciMove.getSource().getBitboardIndex(),
+                uciMove.getTarget().getBitboardIndex(),
+                promotionPiece(uciMove.getPromote())
+        );
+    }
+
+    /**
+     * Validates a move against the position directly instead of generating the moves of the source square: the move
+     * has to match the movement of the piece on the source square, and the king of the active player must not be
+     * attacked afterwards. Requires exactly one king of the active player.
+     *
+     * @return the move encoded the same way as by the move generators, or {@link MoveConstants#NO_MOVE} if it is not
+     * legal in this position
+     */
+    private int resolve(final int sourceIndex, final int targetIndex, final int promote) {
+        final int color = turn == Color.WHITE ? WHITE : BLACK;
+        final int value = mailbox[sourceIndex];
+        final int piece = value & MAILBOX_PIECE_MASK;
+
+        if (piece == NO_PIECE || value >> MAILBOX_COLOR_SHIFT != color) {
+            return NO_MOVE;
+        }
+
+        final int self = color << MAILBOX_COLOR_SHIFT;
+        final int opponent = (color ^ 1) << MAILBOX_COLOR_SHIFT;
+
+        final long source = 1L << sourceIndex;
+        final long target = 1L << targetIndex;
+
+        if ((target & pieces[self | OCCUPANCY]) != 0L) {
+            return NO_MOVE;
+        }
+
+        final boolean promotion = piece == PAWN && (target & (RANK_ONE_SQUARES | RANK_EIGHT_SQUARES)) != 0L;
+
+        if (promotion ? promote < KNIGHT || promote > QUEEN : promote != NO_PIECE) {
+            return NO_MOVE;
+        }
+
+        int bits = piece << PIECE_MOVED_SHIFT
+                | sourceIndex << SOURCE_SQUARE_INDEX_SHIFT
+                | targetIndex << TARGET_SQUARE_INDEX_SHIFT
+                | promote << PROMOTION_PIECE_SHIFT;
+
+        long captured = target & pieces[opponent | OCCUPANCY];
+
+        if (piece == PAWN) {
+            final long singlePush = Long.rotateLeft(source, PAWN_PUSH_ROTATIONS[color]);
+            final long doublePush = Long.rotateLeft(singlePush, PAWN_PUSH_ROTATIONS[color]);
+
+            if (target == singlePush) {
+                if ((target & occupancy) != 0L) {
+                    return NO_MOVE;
+                }
+            } else if (target == doublePush && (source & DOUBLE_PUSH_SOURCE_RANKS[color]) != 0L) {
+                if (((singlePush | target) & occupancy) != 0L) {
+                    return NO_MOVE;
+                }
+
+                bits |= DOUBLE_PAWN_PUSH_MASK;
+            } else if ((PAWN_ATTACKS[color][sourceIndex] & target) != 0L) {
+                if (target == enPassant) {
+                    captured = 1L << (targetIndex - PAWN_PUSH_OFFSETS[color]);
+                    bits |= EN_PASSANT_ATTACK_MASK;
+                } else if (captured == 0L) {
+                    return NO_MOVE;
                 }
+            } else {
+                return NO_MOVE;
+            }
+        } else if (piece == KING) {
+            if ((KING_ATTACKS[sourceIndex] & target) == 0L) {
+                return resolveCastleMove(color, sourceIndex, target, bits);
+            }
 
-                if ((singleMoveTarget & fullOccupancy) == 0L) {
-                    if ((singleMoveTarget & promoteRank) == 0L) {
-                        //no promotion moves
+            final long occupancyWithoutKing = occupancy & ~source;
 
-                        makeBbMove(source, singleMoveTarget, PAWN, false, false, NO_PIECE, NO_SQUARE);
+            if ((attackersTo(targetIndex, color ^ 1, occupancyWithoutKing) & ~captured) != 0L) {
+                return NO_MOVE;
+            }
+        } else if ((pieceAttacks(piece, sourceIndex, occupancy) & target) == 0L) {
+            return NO_MOVE;
+        }
 
-                        final long doubleMoveTarget;
-                        final long doubleMoveSourceRank;
+        if (piece != KING) {
+            final long occupancyAfter = (occupancy & ~source & ~captured) | target;
+            final int kingIndex = Long.numberOfTrailingZeros(pieces[self | KING]);
 
-                        if (whiteTurn) {
-                            doubleMoveTarget = singleMoveTarget << 8;
-                            doubleMoveSourceRank = RANK_TWO_SQUARES;
-                        } else {
-                            doubleMoveTarget = singleMoveTarget >> 8;
-                            doubleMoveSourceRank = RANK_SEVEN_SQUARES;
-                        }
+            if ((attackersTo(kingIndex, color ^ 1, occupancyAfter) & ~captured) != 0L) {
+                return NO_MOVE;
+            }
+        }
+
+        final int pieceAttacked = captured == 0L ? NO_PIECE : mailbox[Long.numberOfTrailingZeros(captured)] & MAILBOX_PIECE_MASK;
+
+        return bits | pieceAttacked << PIECE_ATTACKED_SHIFT;
+    }
+
+    private int resolveCastleMove(final int color, final int sourceIndex, final long target, final int bits) {
+        if (sourceIndex != KING_SQUARE_INDICES[color]) {
+            return NO_MOVE;
+        }
+
+        final long path;
+
+        if (target == KING_SIDE_CASTLE_TARGETS[color].getOccupiedBitMask()
+                && kingSideCastle[color]
+                && (KING_SIDE_CASTLE_OCCUPANCY[color] & occupancy) == 0L) {
+            path = KING_SIDE_CASTLE_PATH[color];
+        } else if (target == QUEEN_SIDE_CASTLE_TARGETS[color].getOccupiedBitMask()
+                && queenSideCastle[color]
+                && (QUEEN_SIDE_CASTLE_OCCUPANCY[color] & occupancy) == 0L) {
+            path = QUEEN_SIDE_CASTLE_PATH[color];
+        } else {
+            return NO_MOVE;
+        }
+
+        if ((path & attackMap(color ^ 1)) != 0L) {
+            return NO_MOVE;
+        }
+
+        return bits | CASTLE_MOVE_MASK;
+    }
+
+    private static int promotionPiece(final Piece piece) {
+        if (piece == null) {
+            return NO_PIECE;
+        }
+
+        switch (piece) {
+            case KNIGHT:
+                return KNIGHT;
+            case BISHOP:
+                return BISHOP;
+            case ROOK:
+                return ROOK;
+            case QUEEN:
+                return QUEEN;
+            default:
+                throw new IllegalArgumentException("Illegal promotion piece " + piece);
+        }
+    }
+
+    private class MoveGenerator {
+        private int mode;
+        private long pieceTargets;
+        private MoveList result;
+
+        private boolean legal;
+        private int color;
+        private int self;
+        private int opponent;
+        private long king;
+        private int kingIndex;
+        private long pinned;
+        private long checkMask;
+
+        void generate(final MoveList result, final int mode, final boolean legal, final long sourceMask) {
+            this.mode = mode;
+            this.result = result;
+            this.legal = legal;
+
+            result.clear();
+
+            color = turn == Color.WHITE ? WHITE : BLACK;
+            self = color << MAILBOX_COLOR_SHIFT;
+            opponent = (color ^ 1) << MAILBOX_COLOR_SHIFT;
+
+            final long selfOccupancy = pieces[self | OCCUPANCY];
+            final long opponentOccupancy = pieces[opponent | OCCUPANCY];
+
+            if (mode == GENERATE_ALL) {
+                pieceTargets = -1L;
+            } else if (mode == GENERATE_QUIET) {
+                pieceTargets = ~opponentOccupancy;
+            } else {
+                pieceTargets = opponentOccupancy;
+            }
+
+            final boolean generateKing = (pieces[self | KING] & sourceMask) != 0L;
+
+            if (legal) {
+                final long checkers = computeCheckersAndPins(pieces[self | KING], selfOccupancy, opponentOccupancy);
+
+                if (generateKing) {
+                    kingMoves(selfOccupancy);
+                }
+
+                if (checkers != 0L) {
+                    if (Long.bitCount(checkers) == 1) {
+                        evasions(checkers, sourceMask);
+                    }
+                    //else double check, only king moves are legal
+
+                    this.result = null;
+                    return;
+                }
+            }
+
+            slidingAttacks(pieces[self | QUEEN] & sourceMask, occupancy, selfOccupancy, QUEEN);
+            slidingAttacks(pieces[self | ROOK] & sourceMask, occupancy, selfOccupancy, ROOK);
+            slidingAttacks(pieces[self | BISHOP] & sourceMask, occupancy, selfOccupancy, BISHOP);
+            singleAttacks(pieces[self | KNIGHT] & sourceMask, selfOccupancy, KNIGHT_ATTACKS, KNIGHT);
+
+            if (!legal) {
+                singleAttacks(pieces[self | KING] & sourceMask, selfOccupancy, KING_ATTACKS, KING);
+            }
+
+            if (mode != GENERATE_QUIET) {
+                pawnAttacks(pieces[self | PAWN] & sourceMask, selfOccupancy, opponentOccupancy);
+            }
+
+            if (mode != GENERATE_ATTACKS) {
+                pawnMoves(pieces[self | PAWN] & sourceMask, occupancy);
+            }
+
+            if (generateKing && (mode == GENERATE_ALL || mode == GENERATE_QUIET)) {
+                castleMoves(occupancy);
+            }
+
+            this.result = null;
+        }
+
+        /**
+         * Computes the pinned pieces and the check mask of the active player.
+         *
+         * @return the opponent pieces giving check
+         */
+        private long computeCheckersAndPins(final long kings, final long selfOccupancy, final long opponentOccupancy) {
+            king = kings;
+            kingIndex = Long.numberOfTrailingZeros(kings);
+
+            final long opponentRookSliders = pieces[opponent | ROOK] | pieces[opponent | QUEEN];
+            final long opponentBishopSliders = pieces[opponent | BISHOP] | pieces[opponent | QUEEN];
 
-                        if ((source & doubleMoveSourceRank) != 0L && (doubleMoveTarget & fullOccupancy) == 0L) {
-                            //is in starting rank and free double move target square
+            final long[] pawnAttacks = PAWN_ATTACKS[color];
 
-                            makeBbMove(source, doubleMoveTarget, PAWN, false, false, NO_PIECE, singleMoveTarget);
+            final long checkers = (SLIDING_ATTACKS.rookAttacks(occupancy, kingIndex) & opponentRookSliders)
+                    | (SLIDING_ATTACKS.bishopAttacks(occupancy, kingIndex) & opponentBishopSliders)
+                    | (KNIGHT_ATTACKS[kingIndex] & pieces[opponent | KNIGHT])
+                    | (pawnAttacks[kingIndex] & pieces[opponent | PAWN]);
+
+            if (checkers == 0L) {
+                checkMask = -1L;
+            } else if (Long.bitCount(checkers) == 1) {
+                checkMask = checkers | BETWEEN[kingIndex][Long.numberOfTrailingZeros(checkers)];
+            } else {
+                checkMask = 0L;
+            }
+
+            //sliders that would attack the king if there were no pieces of the active player
+            long snipers = (SLIDING_ATTACKS.rookAttacks(opponentOccupancy, kingIndex) & opponentRookSliders)
+                    | (SLIDING_ATTACKS.bishopAttacks(opponentOccupancy, kingIndex) & opponentBishopSliders);
+
+            pinned = 0L;
+
+            while (snipers != 0L) {
+                final long sniper = Long.highestOneBit(snipers);
+                snipers &= ~sniper;
+
+                final long blockers = BETWEEN[kingIndex][Long.numberOfTrailingZeros(sniper)] & selfOccupancy;
+
+                if (Long.bitCount(blockers) == 1) {
+                    pinned |= blockers;
+                }
+            }
+
+            return checkers;
+        }
+
+        /**
+         * Generates the non king moves resolving a check by a single piece by looking up the pieces that can reach the
+         * checking piece or the squares between it and the king, instead of generating all moves and masking them.
+         */
+        private void evasions(final long checker, final long sourceMask) {
+            final long movable = sourceMask & ~pinned & ~king;
+
+            final long between = BETWEEN[kingIndex][Long.numberOfTrailingZeros(checker)];
+
+            long remainingTargets = checkMask & pieceTargets;
+
+            while (remainingTargets != 0L) {
+                final long target = Long.highestOneBit(remainingTargets);
+                remainingTargets &= ~target;
+
+                final int targetIndex = Long.numberOfTrailingZeros(target);
+
+                long attackers = ((SLIDING_ATTACKS.rookAttacks(occupancy, targetIndex) & (pieces[self | ROOK] | pieces[self | QUEEN]))
+                        | (SLIDING_ATTACKS.bishopAttacks(occupancy, targetIndex) & (pieces[self | BISHOP] | pieces[self | QUEEN]))
+                        | (KNIGHT_ATTACKS[targetIndex] & pieces[self | KNIGHT])) & movable;
+
+                while (attackers != 0L) {
+                    final long attacker = Long.highestOneBit(attackers);
+                    attackers &= ~attacker;
+
+                    makeBbMove(attacker, target, mailbox[Long.numberOfTrailingZeros(attacker)] & MAILBOX_PIECE_MASK, false, false, NO_PIECE, false);
+                }
+            }
+
+            final long pawns = pieces[self | PAWN] & movable;
+
+            if (mode != GENERATE_QUIET) {
+                final long[] reversePawnAttacks = PAWN_ATTACKS[color ^ 1];
+
+                long attackers = reversePawnAttacks[Long.numberOfTrailingZeros(checker)] & pawns;
+
+                while (attackers != 0L) {
+                    final long attacker = Long.highestOneBit(attackers);
+                    attackers &= ~attacker;
+
+                    generatePawnAttacks(attacker, checker);
+                }
+
+                if (enPassant != 0L) {
+                    long enPassantAttackers = reversePawnAttacks[Long.numberOfTrailingZeros(enPassant)] & pieces[self | PAWN] & sourceMask;
+
+                    while (enPassantAttackers != 0L) {
+                        final long attacker = Long.highestOneBit(enPassantAttackers);
+                        enPassantAttackers &= ~attacker;
+
+                        if (isLegalEnPassant(attacker)) {
+                            generatePawnAttacks(attacker, enPassant);
                         }
+                    }
+                }
+            }
+
+            if (mode == GENERATE_ATTACKS) {
+                return;
+            }
+
+            long remainingBlocks = between;
+
+            while (remainingBlocks != 0L) {
+                final long block = Long.highestOneBit(remainingBlocks);
+                remainingBlocks &= ~block;
+
+                final long singleMoveSource = Long.rotateRight(block, PAWN_PUSH_ROTATIONS[color]);
+
+                if ((singleMoveSource & pawns) != 0L) {
+                    if ((block & (RANK_ONE_SQUARES | RANK_EIGHT_SQUARES)) == 0L) {
+                        makeBbMove(singleMoveSource, block, PAWN, false, false, NO_PIECE, false);
                     } else {
-                        pawnPromotions(source, singleMoveTarget);
+                        pawnPromotions(singleMoveSource, block);
+                    }
+                } else if ((singleMoveSource & occupancy) == 0L) {
+                    final long doubleMoveSource = Long.rotateRight(singleMoveSource, PAWN_PUSH_ROTATIONS[color]);
+
+                    if ((doubleMoveSource & pawns & DOUBLE_PUSH_SOURCE_RANKS[color]) != 0L) {
+                        makeBbMove(doubleMoveSource, block, PAWN, false, false, NO_PIECE, true);
                     }
                 }
             }
         }
 
+        /**
+         * @return the squares the piece on {@code source} may move to, all squares if not generating legal moves
+         */
+        private long legalTargets(final long source) {
+            if (!legal) {
+                return -1L;
+            }
+
+            if ((pinned & source) != 0L) {
+                return checkMask & LINE[kingIndex][Long.numberOfTrailingZeros(source)];
+            }
+
+            return checkMask;
+        }
+
+        private void kingMoves(final long selfOccupancy) {
+            long remainingAttacks = KING_ATTACKS[kingIndex] & ~selfOccupancy & pieceTargets;
+
+            final long occupancyWithoutKing = occupancy & ~king;
+
+            while (remainingAttacks != 0L) {
+                final long attack = Long.highestOneBit(remainingAttacks);
+                remainingAttacks &= ~attack;
+
+                if (!isInCheck(turn, attack, opponent, occupancyWithoutKing)) {
+                    makeBbMove(king, attack, KING, false, false, NO_PIECE, false);
+                }
+            }
+        }
+
+        /**
+         * En passant captures remove two pieces from the capturing rank, so they may uncover a check that the pin
+         * detection does not catch. The resulting position is therefore checked directly.
+         */
+        private boolean isLegalEnPassant(final long source) {
+            final int capturedIndex = Long.numberOfTrailingZeros(enPassant) - PAWN_PUSH_OFFSETS[color];
+
+            final long captured = 1L << capturedIndex;
+
+            final long occupancyAfter = (occupancy & ~source & ~captured) | enPassant;
+
+            if ((SLIDING_ATTACKS.rookAttacks(occupancyAfter, kingIndex) & (pieces[opponent | ROOK] | pieces[opponent | QUEEN])) != 0L) {
+                return false;
+            }
+
+            if ((SLIDING_ATTACKS.bishopAttacks(occupancyAfter, kingIndex) & (pieces[opponent | BISHOP] | pieces[opponent | QUEEN])) != 0L) {
+                return false;
+            }
+
+            final long[] pawnAttacks = PAWN_ATTACKS[color];
+
+            return (KNIGHT_ATTACKS[kingIndex] & pieces[opponent | KNIGHT]) == 0L
+                    && (pawnAttacks[kingIndex] & pieces[opponent | PAWN] & ~captured) == 0L;
+        }
+
+        private void castleMoves(final long occupancy) {
+            final boolean queenSide = queenSideCastle[color] && (QUEEN_SIDE_CASTLE_OCCUPANCY[color] & occupancy) == 0L;
+            final boolean kingSide = kingSideCastle[color] && (KING_SIDE_CASTLE_OCCUPANCY[color] & occupancy) == 0L;
+
+            if (!queenSide && !kingSide) {
+                return;
+            }
+
+            final long attacked = attackMap(color ^ 1);
+
+            if (queenSide && (QUEEN_SIDE_CASTLE_PATH[color] & attacked) == 0L) {
+                makeCastleMove(KING_SQUARES[color], QUEEN_SIDE_CASTLE_TARGETS[color]);
+            }
+
+            if (kingSide && (KING_SIDE_CASTLE_PATH[color] & attacked) == 0L) {
+                makeCastleMove(KING_SQUARES[color], KING_SIDE_CASTLE_TARGETS[color]);
+            }
+        }
+
+        private void makeCastleMove(final Square kingSource, final Square kingTarget) {
+            makeBbMove(kingSource.getOccupiedBitMask(), kingTarget.getOccupiedBitMask(), KING, true, false, NO_PIECE, false);
+        }
+
+        /**
+         * Generates the pushes of all pawns that are not pinned at once by shifting the pawn bitboard, pinned pawns are
+         * generated one by one since each of them may only move along its own pin line.
+         */
+        private void pawnMoves(
+                final long pawns,
+                final long fullOccupancy
+        ) {
+            final long pinnedPawns = legal ? pawns & pinned : 0L;
+
+            pawnPushes(pawns & ~pinnedPawns, fullOccupancy, legal ? checkMask : -1L);
+
+            long remainingPawns = pinnedPawns;
+
+            while (remainingPawns != 0L) {
+                final long source = Long.highestOneBit(remainingPawns);
+                remainingPawns &= ~source;
+
+                pawnPushes(source, fullOccupancy, legalTargets(source));
+            }
+        }
+
+        private void pawnPushes(
+                final long pawns,
+                final long fullOccupancy,
+                final long targets
+        ) {
+            final int pushRotation = PAWN_PUSH_ROTATIONS[color];
+            final long promotionRank = PROMOTION_RANKS[color];
+            final long empty = ~fullOccupancy;
+
+            final long singleMoveTargets = Long.rotateLeft(pawns, pushRotation) & empty;
+            final long doubleMoveTargets = Long.rotateLeft(singleMoveTargets & Long.rotateLeft(DOUBLE_PUSH_SOURCE_RANKS[color], pushRotation), pushRotation) & empty & targets;
+
+            long promotions = singleMoveTargets & targets & promotionRank;
+
+            while (promotions != 0L) {
+                final long target = Long.highestOneBit(promotions);
+                promotions &= ~target;
+
+                pawnPromotions(Long.rotateRight(target, pushRotation), target);
+            }
+
+            if (mode == GENERATE_TACTICAL) {
+                return;
+            }
+
+            long singleMoves = singleMoveTargets & targets & ~promotionRank;
+
+            while (singleMoves != 0L) {
+                final long target = Long.highestOneBit(singleMoves);
+                singleMoves &= ~target;
+
+                makeBbMove(Long.rotateRight(target, pushRotation), target, PAWN, false, false, NO_PIECE, false);
+            }
+
+            long doubleMoves = doubleMoveTargets;
+
+            while (doubleMoves != 0L) {
+                final long target = Long.highestOneBit(doubleMoves);
+                doubleMoves &= ~target;
+
+                final long singleMoveTarget = Long.rotateRight(target, pushRotation);
+
+                makeBbMove(Long.rotateRight(singleMoveTarget, pushRotation), target, PAWN, false, false, NO_PIECE, true);
+            }
+        }
+
         private void pawnPromotions(
                 final long source,
                 final long target
@@ -593,25 +1527,72 @@ public class Bitboard {
                 final long target,
                 final int promotionPiece
         ) {
-            makeBbMove(source, target, PAWN, false, false, promotionPiece, 0L);
+            makeBbMove(source, target, PAWN, false, false, promotionPiece, false);
         }
 
+        /**
+         * Generates the captures of all pawns that are not pinned at once, one shift per capture direction. Pinned pawns
+         * and en passant captures are generated one by one.
+         */
         private void pawnAttacks(
                 final long pawns,
                 final long selfOccupancy,
                 final long opponentOccupancy
         ) {
-            long remainingPawns = pawns;
+            final long pinnedPawns = legal ? pawns & pinned : 0L;
+            final long freePawns = pawns & ~pinnedPawns;
+            final long targets = opponentOccupancy & (legal ? checkMask : -1L);
+
+            pawnCaptures(freePawns & ~FILE_A_SQUARES, targets, PAWN_WEST_CAPTURE_ROTATIONS[color]);
+            pawnCaptures(freePawns & ~FILE_H_SQUARES, targets, PAWN_EAST_CAPTURE_ROTATIONS[color]);
+
+            long remainingPawns = pinnedPawns;
 
-            final long[] pawnAttacks = turn == Color.WHITE ? WHITE_PAWN_ATTACKS : BLACK_PAWN_ATTACKS;
+            final long[] pawnAttacks = PAWN_ATTACKS[color];
 
             while (remainingPawns != 0L) {
                 final long source = Long.highestOneBit(remainingPawns);
                 remainingPawns &= ~source;
 
-                final long attacks = pawnAttacks[Long.numberOfTrailingZeros(source)] & (opponentOccupancy | enPassant) & ~selfOccupancy;
+                generatePawnAttacks(source, pawnAttacks[Long.numberOfTrailingZeros(source)] & opponentOccupancy & legalTargets(source));
+            }
+
+            if (enPassant == 0L) {
+                return;
+            }
+
+            long enPassantAttackers = PAWN_ATTACKS[color ^ 1][Long.numberOfTrailingZeros(enPassant)] & pawns;
+
+            while (enPassantAttackers != 0L) {
+                final long source = Long.highestOneBit(enPassantAttackers);
+                enPassantAttackers &= ~source;
+
+                if (!legal || isLegalEnPassant(source)) {
+                    generatePawnAttacks(source, enPassant);
+                }
+            }
+        }
+
+        private void pawnCaptures(
+                final long pawns,
+                final long targets,
+                final int captureRotation
+        ) {
+            final long promotionRank = PROMOTION_RANKS[color];
+
+            long remainingAttacks = Long.rotateLeft(pawns, captureRotation) & targets;
+
+            while (remainingAttacks != 0L) {
+                final long attack = Long.highestOneBit(remainingAttacks);
+                remainingAttacks &= ~attack;
+
+                final long source = Long.rotateRight(attack, captureRotation);
 
-                generatePawnAttacks(source, attacks);
+                if ((attack & promotionRank) != 0L) {
+                    pawnPromotions(source, attack);
+                } else {
+                    makeBbMove(source, attack, PAWN, false, false, NO_PIECE, false);
+                }
             }
         }
 
@@ -627,7 +1608,7 @@ public class Bitboard {
                 final long source = Long.highestOneBit(remainingPieces);
                 remainingPieces &= ~source;
 
-                final long attacks = attacksArray[Long.numberOfTrailingZeros(source)] & ~selfOccupancy;
+                final long attacks = attacksArray[Long.numberOfTrailingZeros(source)] & ~selfOccupancy & pieceTargets & legalTargets(source);
 
                 generateAttacks(source, attacks, piece);
             }
@@ -637,7 +1618,6 @@ public class Bitboard {
                 final long pieces,
                 final long fullOccupancy,
                 final long selfOccupancy,
-                final MagicBitboard bitboard,
                 final int piece
         ) {
             long remainingPieces = pieces;
@@ -646,7 +1626,7 @@ public class Bitboard {
                 final long source = Long.highestOneBit(remainingPieces);
                 remainingPieces &= ~source;
 
-                final long attacks = bitboard.attacks(fullOccupancy, Long.numberOfTrailingZeros(source)) & ~selfOccupancy;
+                final long attacks = pieceAttacks(piece, Long.numberOfTrailingZeros(source), fullOccupancy) & ~selfOccupancy & pieceTargets & legalTargets(source);
 
                 generateAttacks(source, attacks, piece);
             }
@@ -663,7 +1643,7 @@ public class Bitboard {
                 final long attack = Long.highestOneBit(remainingAttacks);
                 remainingAttacks &= ~attack;
 
-                makeBbMove(source, attack, piece, false, false, NO_PIECE, NO_SQUARE);
+                makeBbMove(source, attack, piece, false, false, NO_PIECE, false);
             }
         }
 
@@ -673,112 +1653,81 @@ public class Bitboard {
         ) {
             long remainingAttacks = attacks;
 
+            final long promotionRank = PROMOTION_RANKS[color];
+
             while (remainingAttacks != 0L) {
                 final long attack = Long.highestOneBit(remainingAttacks);
                 remainingAttacks &= ~attack;
 
-                if ((turn == Color.WHITE && (attack & RANK_EIGHT_SQUARES) != 0L) || (turn == Color.BLACK && (attack & RANK_ONE_SQUARES) != 0L)) {
+                if ((attack & promotionRank) != 0L) {
                     pawnPromotions(source, attack);
                 } else {
-                    makeBbMove(source, attack, PAWN, false, attack == enPassant, NO_PIECE, NO_SQUARE);
+                    makeBbMove(source, attack, PAWN, false, attack == enPassant, NO_PIECE, false);
                 }
             }
         }
 
         private void makeBbMove(
-                final long sourceSquare, final long targetSquare, final int pieceMoved, final boolean castleMove, final boolean enPassantAttack, final int piecePromote, final long enPassantOpportunitySquare
+                final long sourceSquare, final long targetSquare, final int pieceMoved, final boolean castleMove, final boolean enPassantAttack, final int piecePromote, final boolean doublePawnPush
         ) {
             final int targetSquareIndex = Long.numberOfTrailingZeros(targetSquare);
 
-            long bits = 0L;
+            int bits = 0;
 
             final int attackSquareIndex;
 
             if (enPassantAttack) {
-                attackSquareIndex = turn == Color.WHITE ? targetSquareIndex - 8 : targetSquareIndex + 8;
+                attackSquareIndex = targetSquareIndex - PAWN_PUSH_OFFSETS[color];
                 bits |= EN_PASSANT_ATTACK_MASK;
             } else {
                 attackSquareIndex = targetSquareIndex;
             }
 
-            final int pieceAttacked = turn == Color.WHITE ? black.getPieceConst(attackSquareIndex) : white.getPieceConst(attackSquareIndex);
+            final int pieceAttacked = mailbox[attackSquareIndex] & MAILBOX_PIECE_MASK;
 
-            if (onlyAttackMoves && pieceAttacked == 0) {
-                return;
+            switch (mode) {
+                case GENERATE_ATTACKS:
+                    if (pieceAttacked == NO_PIECE) {
+                        return;
+                    }
+                    break;
+                case GENERATE_TACTICAL:
+                    if (pieceAttacked == NO_PIECE && piecePromote == NO_PIECE) {
+                        return;
+                    }
+                    break;
+                case GENERATE_QUIET:
+                    if (pieceAttacked != NO_PIECE || piecePromote != NO_PIECE) {
+                        return;
+                    }
+                    break;
             }
 
-            bits |= (long) pieceMoved << PIECE_MOVED_SHIFT;
-            bits |= (long) pieceAttacked << PIECE_ATTACKED_SHIFT;
+            bits |= pieceMoved << PIECE_MOVED_SHIFT;
+            bits |= pieceAttacked << PIECE_ATTACKED_SHIFT;
 
             final int sourceSquareIndex = Long.numberOfTrailingZeros(sourceSquare);
 
-            bits |= (long) sourceSquareIndex << SOURCE_SQUARE_INDEX_SHIFT;
-            bits |= (long) targetSquareIndex << TARGET_SQUARE_INDEX_SHIFT;
+            bits |= sourceSquareIndex << SOURCE_SQUARE_INDEX_SHIFT;
+            bits |= targetSquareIndex << TARGET_SQUARE_INDEX_SHIFT;
 
             if (castleMove) {
                 bits |= CASTLE_MOVE_MASK;
             }
 
-            if (pieceMoved == PAWN || pieceAttacked != NO_PIECE) {
-                bits |= HALFMOVE_RESET_MASK;
-            }
-
-            bits |= (long) halfmoveClock << PREVIOUS_HALFMOVE_SHIFT;
-
-            if (enPassant != 0L) {
-                bits |= (long) Long.numberOfTrailingZeros(enPassant) << PREVIOUS_EN_PASSANT_SQUARE_INDEX_SHIFT;
+            if (doublePawnPush) {
+                bits |= DOUBLE_PAWN_PUSH_MASK;
             }
 
-            if (enPassantOpportunitySquare != 0L) {
-                bits |= ((long) Long.numberOfTrailingZeros(enPassantOpportunitySquare)) << NEXT_EN_PASSANT_SQUARE_INDEX_SHIFT;
-            }
+            bits |= piecePromote << PROMOTION_PIECE_SHIFT;
 
-            bits |= (long) piecePromote << PROMOTION_PIECE_SHIFT;
+            final int mvvLva = mvvLva(pieceMoved, pieceAttacked);
 
-            if (turn == Color.BLACK) {
-                if (white.queenSideCastle && targetSquareIndex == A1) {
-                    bits |= OPPONENT_LOST_QUEEN_SIDE_CASTLE_MASK;
-                } else if (white.kingSideCastle && targetSquareIndex == H1) {
-                    bits |= OPPONENT_LOST_KING_SIDE_CASTLE_MASK;
-                }
+            result.add(bits, mvvLva, mvvLva + squareDiff(color, pieceMoved, sourceSquareIndex, targetSquareIndex));
+        }
+    }
 
-                if (black.queenSideCastle && (sourceSquareIndex == A8 || sourceSquareIndex == E8)) {
-                    bits |= SELF_LOST_QUEEN_SIDE_CASTLE_MASK;
-                }
-
-                if (black.kingSideCastle && (sourceSquareIndex == H8 || sourceSquareIndex == E8)) {
-                    bits |= SELF_LOST_KING_SIDE_CASTLE_MASK;
-                }
-            } else {
-                if (black.queenSideCastle && targetSquareIndex == A8) {
-                    bits |= OPPONENT_LOST_QUEEN_SIDE_CASTLE_MASK;
-                } else if (black.kingSideCastle && targetSquareIndex == H8) {
-                    bits |= OPPONENT_LOST_KING_SIDE_CASTLE_MASK;
-                }
-
-                if (white.queenSideCastle && (sourceSquareIndex == A1 || sourceSquareIndex == E1)) {
-                    bits |= SELF_LOST_QUEEN_SIDE_CASTLE_MASK;
-                }
-
-                if (white.kingSideCastle && (sourceSquareIndex == H1 || sourceSquareIndex == E1)) {
-                    bits |= SELF_LOST_KING_SIDE_CASTLE_MASK;
-                }
-            }
-
-            final int turnConst = turn == Color.WHITE ? WHITE : BLACK;
-
-            final int gameStage = (white.queens | black.queens) == 0L ? 1 : 0;
-
-            final int squareDiff = PIECE_SQUARE_VALUES[turnConst][pieceMoved][gameStage][targetSquareIndex]
-                    - PIECE_SQUARE_VALUES[turnConst][pieceMoved][gameStage][sourceSquareIndex];
-
-            final int mvvLva = mvvLva(pieceMoved, pieceAttacked);
-
-            result.add(new BBMove(bits, mvvLva, squareDiff));
-        }
-    }
-
-    // endregion
+    // endregion
 
     // region Piece Getters
     //    _____ _____ ______ _____ ______    _____ ______ _______ ______ _____   _____
@@ -793,55 +1742,44 @@ public class Bitboard {
     }
 
     private ColoredPiece getPiece(final long square) {
-        if ((white.kings & square) != 0L) {
-            return ColoredPiece.WHITE_KING;
-        }
+        final int value = mailbox[Long.numberOfTrailingZeros(square)];
 
-        if ((white.queens & square) != 0L) {
-            return ColoredPiece.WHITE_QUEEN;
-        }
-
-        if ((white.rooks & square) != 0L) {
-            return ColoredPiece.WHITE_ROOK;
-        }
-
-        if ((white.bishops & square) != 0L) {
-            return ColoredPiece.WHITE_BISHOP;
-        }
-
-        if ((white.knights & square) != 0L) {
-            return ColoredPiece.WHITE_KNIGHT;
-        }
-
-        if ((white.pawns & square) != 0L) {
-            return ColoredPiece.WHITE_PAWN;
-        }
+        return COLORED_PIECES[value >> MAILBOX_COLOR_SHIFT][value & MAILBOX_PIECE_MASK];
+    }
 
-        if ((black.kings & square) != 0L) {
-            return ColoredPiece.BLACK_KING;
-        }
+    private static byte mailboxValue(final int color, final int piece) {
+        return (byte) (color << MAILBOX_COLOR_SHIFT | piece);
+    }
 
-        if ((black.queens & square) != 0L) {
-            return ColoredPiece.BLACK_QUEEN;
-        }
+    private void loadMailbox(final int color) {
+        final int player = color << MAILBOX_COLOR_SHIFT;
 
-        if ((black.rooks & square) != 0L) {
-            return ColoredPiece.BLACK_ROOK;
-        }
+        loadMailbox(pieces[player | KING], color, KING);
+        loadMailbox(pieces[player | QUEEN], color, QUEEN);
+        loadMailbox(pieces[player | ROOK], color, ROOK);
+        loadMailbox(pieces[player | BISHOP], color, BISHOP);
+        loadMailbox(pieces[player | KNIGHT], color, KNIGHT);
+        loadMailbox(pieces[player | PAWN], color, PAWN);
+    }
 
-        if ((black.bishops & square) != 0L) {
-            return ColoredPiece.BLACK_BISHOP;
-        }
+    private void loadMailbox(final long board, final int color, final int piece) {
+        long remaining = board;
 
-        if ((black.knights & square) != 0L) {
-            return ColoredPiece.BLACK_KNIGHT;
-        }
+        while (remaining != 0L) {
+            final long current = Long.highestOneBit(remaining);
+            remaining &= ~current;
 
-        if ((black.pawns & square) != 0L) {
-            return ColoredPiece.BLACK_PAWN;
+            mailbox[Long.numberOfTrailingZeros(current)] = mailboxValue(color, piece);
         }
+    }
 
-        return null;
+    private void resetOccupancy(final int player) {
+        pieces[player | OCCUPANCY] = pieces[player | KING]
+                | pieces[player | QUEEN]
+                | pieces[player | ROOK]
+                | pieces[player | BISHOP]
+                | pieces[player | KNIGHT]
+                | pieces[player | PAWN];
     }
 
     private static boolean isOccupied(final long board, final long square) {
@@ -861,7 +1799,16 @@ public class Bitboard {
     public int computeScore(final Color color) {
         Objects.requireNonNull(color);
 
-        return color == Color.WHITE ? white.score() : black.score();
+        return color == Color.WHITE ? score(WHITE_PIECES) : score(BLACK_PIECES);
+    }
+
+    private int score(final int player) {
+        return Long.bitCount(pieces[player | KING]) * KING_VALUE
+                + Long.bitCount(pieces[player | QUEEN]) * QUEEN_VALUE
+                + Long.bitCount(pieces[player | ROOK]) * ROOK_VALUE
+                + Long.bitCount(pieces[player | BISHOP]) * BISHOP_VALUE
+                + Long.bitCount(pieces[player | KNIGHT]) * KNIGHT_VALUE
+                + Long.bitCount(pieces[player | PAWN]) * PAWN_VALUE;
     }
 
     public int pieceSquareValue(final Color color) {
@@ -870,19 +1817,19 @@ public class Bitboard {
         final int[] whiteKingTable = lateGame ? WHITE_KING_TABLE_LATE : WHITE_KING_TABLE_MID;
         final int[] blackKingTable = lateGame ? BLACK_KING_TABLE_LATE : BLACK_KING_TABLE_MID;
 
-        final int whiteSum = sum(white.pawns, WHITE_PAWN_TABLE)
-                + sum(white.knights, WHITE_KNIGHT_TABLE)
-                + sum(white.bishops, WHITE_BISHOP_TABLE)
-                + sum(white.rooks, WHITE_ROOK_TABLE)
-                + sum(white.queens, WHITE_QUEEN_TABLE)
-                + sum(white.kings, whiteKingTable);
+        final int whiteSum = sum(pieces[WHITE_PIECES | PAWN], WHITE_PAWN_TABLE)
+                + sum(pieces[WHITE_PIECES | KNIGHT], WHITE_KNIGHT_TABLE)
+                + sum(pieces[WHITE_PIECES | BISHOP], WHITE_BISHOP_TABLE)
+                + sum(pieces[WHITE_PIECES | ROOK], WHITE_ROOK_TABLE)
+                + sum(pieces[WHITE_PIECES | QUEEN], WHITE_QUEEN_TABLE)
+                + sum(pieces[WHITE_PIECES | KING], whiteKingTable);
 
-        final int blackSum = sum(black.pawns, BLACK_PAWN_TABLE)
-                + sum(black.knights, BLACK_KNIGHT_TABLE)
-                + sum(black.bishops, BLACK_BISHOP_TABLE)
-                + sum(black.rooks, BLACK_ROOK_TABLE)
-                + sum(black.queens, BLACK_QUEEN_TABLE)
-                + sum(black.kings, blackKingTable);
+        final int blackSum = sum(pieces[BLACK_PIECES | PAWN], BLACK_PAWN_TABLE)
+                + sum(pieces[BLACK_PIECES | KNIGHT], BLACK_KNIGHT_TABLE)
+                + sum(pieces[BLACK_PIECES | BISHOP], BLACK_BISHOP_TABLE)
+                + sum(pieces[BLACK_PIECES | ROOK], BLACK_ROOK_TABLE)
+                + sum(pieces[BLACK_PIECES | QUEEN], BLACK_QUEEN_TABLE)
+                + sum(pieces[BLACK_PIECES | KING], blackKingTable);
 
         final int sum = whiteSum + blackSum;
 
@@ -890,11 +1837,11 @@ public class Bitboard {
     }
 
     private boolean isLateGame() {
-        final boolean whiteHasQueen = white.queens != 0L; // a
-        final boolean blackHasQueen = black.queens != 0L; // b
+        final boolean whiteHasQueen = pieces[WHITE_PIECES | QUEEN] != 0L; // a
+        final boolean blackHasQueen = pieces[BLACK_PIECES | QUEEN] != 0L; // b
 
-        final boolean whiteHasOneOrFewerMinorPieces = Long.bitCount(white.knights | white.bishops) <= 1;
-        final boolean blackHasOneOrFewerMinorPieces = Long.bitCount(black.knights | black.bishops) <= 1;
+        final boolean whiteHasOneOrFewerMinorPieces = Long.bitCount(pieces[WHITE_PIECES | KNIGHT] | pieces[WHITE_PIECES | BISHOP]) <= 1;
+        final boolean blackHasOneOrFewerMinorPieces = Long.bitCount(pieces[BLACK_PIECES | KNIGHT] | pieces[BLACK_PIECES | BISHOP]) <= 1;
 
         final boolean whiteHasQueenAndOneOrFewerMinorPieces = whiteHasQueen && whiteHasOneOrFewerMinorPieces; // c
         final boolean blackHasQueenAndOneOrFewerMinorPieces = blackHasQueen && blackHasOneOrFewerMinorPieces; // d
@@ -929,6 +1876,201 @@ public class Bitboard {
         return (pieceValue(target) << 8) - sourceValue;
     }
 
+    /**
+     * Static exchange evaluation of a move: the material balance for the moving player after the sequence of captures
+     * on the target square, each side capturing with its least valuable attacker and being free to stop. Sliders
+     * revealed by a capture join the exchange, pins are ignored. Moves are neither made nor unmade.
+     *
+     * @param move a move of this position
+     * @return the material gain of the exchange in centipawns
+     */
+    public int see(final int move) {
+        if ((move & CASTLE_MOVE_MASK) != 0) {
+            return 0;
+        }
+
+        final int targetSquareIndex = (move & TARGET_SQUARE_INDEX_MASK) >> TARGET_SQUARE_INDEX_SHIFT;
+        final int promote = (move & PROMOTION_PIECE_MASK) >> PROMOTION_PIECE_SHIFT;
+
+        long occupied = exchangeOccupancy(move);
+        long attackers = exchangeAttackers(targetSquareIndex, occupied);
+
+        int pieceOnTarget = promote == NO_PIECE ? (move & PIECE_MOVED_MASK) >> PIECE_MOVED_SHIFT : promote;
+        int side = turn == Color.WHITE ? WHITE : BLACK;
+        int depth = 0;
+
+        seeGains[0] = exchangeGain(move);
+
+        while (true) {
+            side ^= 1;
+            attackers &= occupied;
+
+            final int player = side << MAILBOX_COLOR_SHIFT;
+            final long sideAttackers = attackers & pieces[player | OCCUPANCY];
+
+            if (sideAttackers == 0L) {
+                break;
+            }
+
+            final int attacker = leastValuableAttacker(sideAttackers, player);
+
+            if (attacker == KING && (attackers & pieces[(side ^ 1) << MAILBOX_COLOR_SHIFT | OCCUPANCY]) != 0L) {
+                break;
+            }
+
+            depth++;
+            seeGains[depth] = SEE_VALUES[pieceOnTarget] - seeGains[depth - 1];
+            pieceOnTarget = attacker;
+
+            occupied ^= Long.lowestOneBit(sideAttackers & pieces[player | attacker]);
+            attackers |= revealedSliders(attacker, targetSquareIndex, occupied);
+        }
+
+        while (depth > 0) {
+            seeGains[depth - 1] = -Math.max(-seeGains[depth - 1], seeGains[depth]);
+            depth--;
+        }
+
+        return seeGains[0];
+    }
+
+    /**
+     * Whether the {@link #see(int) static exchange evaluation} of a move is at least {@code threshold}, without
+     * resolving the complete exchange.
+     *
+     * @param move      a move of this position
+     * @param threshold the material gain in centipawns
+     * @return {@code see(move) >= threshold}
+     */
+    public boolean seeGreaterOrEqual(final int move, final int threshold) {
+        if ((move & CASTLE_MOVE_MASK) != 0) {
+            return threshold <= 0;
+        }
+
+        final int targetSquareIndex = (move & TARGET_SQUARE_INDEX_MASK) >> TARGET_SQUARE_INDEX_SHIFT;
+        final int promote = (move & PROMOTION_PIECE_MASK) >> PROMOTION_PIECE_SHIFT;
+
+        //balance if the opponent stops now
+        int swap = exchangeGain(move) - threshold;
+
+        if (swap < 0) {
+            return false;
+        }
+
+        //balance if the opponent captures the piece on the target square and we stop
+        swap = SEE_VALUES[promote == NO_PIECE ? (move & PIECE_MOVED_MASK) >> PIECE_MOVED_SHIFT : promote] - swap;
+
+        if (swap <= 0) {
+            return true;
+        }
+
+        long occupied = exchangeOccupancy(move);
+        long attackers = exchangeAttackers(targetSquareIndex, occupied);
+
+        int side = turn == Color.WHITE ? WHITE : BLACK;
+        int result = 1;
+
+        while (true) {
+            side ^= 1;
+            attackers &= occupied;
+
+            final int player = side << MAILBOX_COLOR_SHIFT;
+            final long sideAttackers = attackers & pieces[player | OCCUPANCY];
+
+            if (sideAttackers == 0L) {
+                break;
+            }
+
+            result ^= 1;
+
+            final int attacker = leastValuableAttacker(sideAttackers, player);
+
+            if (attacker == KING) {
+                //the king may only capture if the other side has no attackers left
+                return ((attackers & pieces[(side ^ 1) << MAILBOX_COLOR_SHIFT | OCCUPANCY]) != 0L ? result ^ 1 : result) != 0;
+            }
+
+            swap = SEE_VALUES[attacker] - swap;
+
+            if (swap < result) {
+                break;
+            }
+
+            occupied ^= Long.lowestOneBit(sideAttackers & pieces[player | attacker]);
+            attackers |= revealedSliders(attacker, targetSquareIndex, occupied);
+        }
+
+        return result != 0;
+    }
+
+    /**
+     * @return the value captured by a move plus the value gained by promoting
+     */
+    private static int exchangeGain(final int move) {
+        final int promote = (move & PROMOTION_PIECE_MASK) >> PROMOTION_PIECE_SHIFT;
+        final int gain = SEE_VALUES[(move & PIECE_ATTACKED_MASK) >> PIECE_ATTACKED_SHIFT];
+
+        return promote == NO_PIECE ? gain : gain + SEE_VALUES[promote] - PAWN_VALUE;
+    }
+
+    /**
+     * @return the occupancy after the moving piece and, for en passant, the captured pawn left their squares
+     */
+    private long exchangeOccupancy(final int move) {
+        final int sourceSquareIndex = (move & SOURCE_SQUARE_INDEX_MASK) >> SOURCE_SQUARE_INDEX_SHIFT;
+
+        long result = occupancy & ~(1L << sourceSquareIndex);
+
+        if ((move & EN_PASSANT_ATTACK_MASK) != 0) {
+            final int targetSquareIndex = (move & TARGET_SQUARE_INDEX_MASK) >> TARGET_SQUARE_INDEX_SHIFT;
+
+            result &= ~(1L << (targetSquareIndex - PAWN_PUSH_OFFSETS[turn == Color.WHITE ? WHITE : BLACK]));
+        }
+
+        return result;
+    }
+
+    private long exchangeAttackers(final int index, final long occupied) {
+        return attackersTo(index, WHITE, occupied) | attackersTo(index, BLACK, occupied);
+    }
+
+    private int leastValuableAttacker(final long attackers, final int player) {
+        for (int piece = PAWN; piece < KING; piece++) {
+            if ((attackers & pieces[player | piece]) != 0L) {
+                return piece;
+            }
+        }
+
+        return KING;
+    }
+
+    /**
+     * @return the sliders attacking {@code index} through the square of a captured {@code piece}, only pieces moving
+     * along the same kind of line can uncover a slider
+     */
+    private long revealedSliders(final int piece, final int index, final long occupied) {
+        switch (piece) {
+            case PAWN:
+            case BISHOP:
+                return SLIDING_ATTACKS.bishopAttacks(occupied, index) & diagonalSliders();
+            case ROOK:
+                return SLIDING_ATTACKS.rookAttacks(occupied, index) & straightSliders();
+            case QUEEN:
+                return (SLIDING_ATTACKS.bishopAttacks(occupied, index) & diagonalSliders())
+                        | (SLIDING_ATTACKS.rookAttacks(occupied, index) & straightSliders());
+            default:
+                return 0L;
+        }
+    }
+
+    private long diagonalSliders() {
+        return pieces[WHITE_PIECES | BISHOP] | pieces[WHITE_PIECES | QUEEN] | pieces[BLACK_PIECES | BISHOP] | pieces[BLACK_PIECES | QUEEN];
+    }
+
+    private long straightSliders() {
+        return pieces[WHITE_PIECES | ROOK] | pieces[WHITE_PIECES | QUEEN] | pieces[BLACK_PIECES | ROOK] | pieces[BLACK_PIECES | QUEEN];
+    }
+
     private static long zobristHashForOccupancy(final long board, final ColoredPiece coloredPiece) {
         long hash = 0L;
 
@@ -946,95 +2088,429 @@ public class Bitboard {
         return hash;
     }
 
-    public long zobristHash() {
-        long hash = zobristHashForOccupancy(white.kings, ColoredPiece.WHITE_KING)
-                ^ zobristHashForOccupancy(white.queens, ColoredPiece.WHITE_QUEEN)
-                ^ zobristHashForOccupancy(white.rooks, ColoredPiece.WHITE_ROOK)
-                ^ zobristHashForOccupancy(white.bishops, ColoredPiece.WHITE_BISHOP)
-                ^ zobristHashForOccupancy(white.knights, ColoredPiece.WHITE_KNIGHT)
-                ^ zobristHashForOccupancy(white.pawns, ColoredPiece.WHITE_PAWN)
-                ^ zobristHashForOccupancy(black.kings, ColoredPiece.BLACK_KING)
-                ^ zobristHashForOccupancy(black.queens, ColoredPiece.BLACK_QUEEN)
-                ^ zobristHashForOccupancy(black.rooks, ColoredPiece.BLACK_ROOK)
-                ^ zobristHashForOccupancy(black.bishops, ColoredPiece.BLACK_BISHOP)
-                ^ zobristHashForOccupancy(black.knights, ColoredPiece.BLACK_KNIGHT)
-                ^ zobristHashForOccupancy(black.pawns, ColoredPiece.BLACK_PAWN);
+    /**
+     * @return the incrementally updated zobrist hash of this position
+     */
+    public long zobristHash() {
+        return zobristHash;
+    }
+
+    /**
+     * Computes the zobrist hash of this position from scratch.
+     *
+     * @return the zobrist hash of this position
+     * @see #zobristHash()
+     */
+    public long computeZobristHash() {
+        long hash = zobristHashForOccupancy(pieces[WHITE_PIECES | KING], ColoredPiece.WHITE_KING)
+                ^ zobristHashForOccupancy(pieces[WHITE_PIECES | QUEEN], ColoredPiece.WHITE_QUEEN)
+                ^ zobristHashForOccupancy(pieces[WHITE_PIECES | ROOK], ColoredPiece.WHITE_ROOK)
+                ^ zobristHashForOccupancy(pieces[WHITE_PIECES | BISHOP], ColoredPiece.WHITE_BISHOP)
+                ^ zobristHashForOccupancy(pieces[WHITE_PIECES | KNIGHT], ColoredPiece.WHITE_KNIGHT)
+                ^ zobristHashForOccupancy(pieces[WHITE_PIECES | PAWN], ColoredPiece.WHITE_PAWN)
+                ^ zobristHashForOccupancy(pieces[BLACK_PIECES | KING], ColoredPiece.BLACK_KING)
+                ^ zobristHashForOccupancy(pieces[BLACK_PIECES | QUEEN], ColoredPiece.BLACK_QUEEN)
+                ^ zobristHashForOccupancy(pieces[BLACK_PIECES | ROOK], ColoredPiece.BLACK_ROOK)
+                ^ zobristHashForOccupancy(pieces[BLACK_PIECES | BISHOP], ColoredPiece.BLACK_BISHOP)
+                ^ zobristHashForOccupancy(pieces[BLACK_PIECES | KNIGHT], ColoredPiece.BLACK_KNIGHT)
+                ^ zobristHashForOccupancy(pieces[BLACK_PIECES | PAWN], ColoredPiece.BLACK_PAWN);
+
+        if (enPassant != 0L) {
+            hash ^= ZobristHashing.hashEnPassant(Long.numberOfTrailingZeros(enPassant));
+        }
+
+        if (kingSideCastle[WHITE]) {
+            hash ^= ZobristHashing.whiteKingCastleHash();
+        }
+        if (queenSideCastle[WHITE]) {
+            hash ^= ZobristHashing.whiteQueenCastleHash();
+        }
+        if (kingSideCastle[BLACK]) {
+            hash ^= ZobristHashing.blackKingCastleHash();
+        }
+        if (queenSideCastle[BLACK]) {
+            hash ^= ZobristHashing.blackQueenCastleHash();
+        }
+
+        if (turn == Color.BLACK) {
+            hash ^= ZobristHashing.getBlacksTurnHash();
+        }
+
+        return hash;
+    }
+
+    /**
+     * Computes the change of the zobrist hash caused by the piece placement and turn change of a move. Changes of the
+     * castling rights and the en passant square depend on the position and are not included.
+     *
+     * @param bits  the move
+     * @param color the color of the moving player
+     * @return the zobrist delta of the move
+     */
+    static long zobristDelta(final int bits, final int color) {
+        final int opponentColor = color == WHITE ? BLACK : WHITE;
+
+        final int sourceSquareIndex = (bits & SOURCE_SQUARE_INDEX_MASK) >> SOURCE_SQUARE_INDEX_SHIFT;
+        final int targetSquareIndex = (bits & TARGET_SQUARE_INDEX_MASK) >> TARGET_SQUARE_INDEX_SHIFT;
+
+        final int pieceMoved = (bits & PIECE_MOVED_MASK) >> PIECE_MOVED_SHIFT;
+        final int pieceAttacked = (bits & PIECE_ATTACKED_MASK) >> PIECE_ATTACKED_SHIFT;
+
+        long delta = ZobristHashing.getBlacksTurnHash()
+                ^ ZobristHashing.hashPieceSquare(COLORED_PIECES[color][pieceMoved], sourceSquareIndex);
+
+        if ((bits & CASTLE_MOVE_MASK) != 0) {
+            final ColoredPiece rook = COLORED_PIECES[color][ROOK];
+
+            delta ^= ZobristHashing.hashPieceSquare(COLORED_PIECES[color][KING], targetSquareIndex);
+
+            if (targetSquareIndex == C1 || targetSquareIndex == C8) {
+                delta ^= ZobristHashing.hashPieceSquare(rook, targetSquareIndex - 2)
+                        ^ ZobristHashing.hashPieceSquare(rook, targetSquareIndex + 1);
+            } else {
+                delta ^= ZobristHashing.hashPieceSquare(rook, targetSquareIndex + 1)
+                        ^ ZobristHashing.hashPieceSquare(rook, targetSquareIndex - 1);
+            }
+        } else if ((bits & EN_PASSANT_ATTACK_MASK) != 0) {
+            final int attackSquareIndex = color == WHITE ? targetSquareIndex - 8 : targetSquareIndex + 8;
+
+            delta ^= ZobristHashing.hashPieceSquare(COLORED_PIECES[color][PAWN], targetSquareIndex)
+                    ^ ZobristHashing.hashPieceSquare(COLORED_PIECES[opponentColor][pieceAttacked], attackSquareIndex);
+        } else {
+            final int promote = (bits & PROMOTION_PIECE_MASK) >> PROMOTION_PIECE_SHIFT;
+
+            delta ^= ZobristHashing.hashPieceSquare(COLORED_PIECES[color][promote == NO_PIECE ? pieceMoved : promote], targetSquareIndex);
+
+            if (pieceAttacked != NO_PIECE) {
+                delta ^= ZobristHashing.hashPieceSquare(COLORED_PIECES[opponentColor][pieceAttacked], targetSquareIndex);
+            }
+        }
+
+        return delta;
+    }
+
+    /**
+     * Enables or disables the validation of the incremental zobrist hash after every make and unmake.
+     *
+     * @param enabled whether to validate the zobrist hash
+     */
+    public static void setZobristVerification(final boolean enabled) {
+        zobristVerification = enabled;
+    }
+
+    private void verifyZobristHash(final int bits) {
+        final long expected = computeZobristHash();
+
+        if (expected != zobristHash) {
+            throw new IllegalStateException("Incremental zobrist hash " + zobristHash + " differs from " + expected + " after move " + BBMove.asUciMove(bits) + " in " + fen());
+        }
+    }
+
+    public boolean equalsZobrist(final Bitboard bitboard) {
+        return Arrays.equals(pieces, bitboard.pieces)
+                && Arrays.equals(kingSideCastle, bitboard.kingSideCastle)
+                && Arrays.equals(queenSideCastle, bitboard.queenSideCastle)
+                && enPassant == bitboard.enPassant;
+    }
+
+    /**
+     * Whether this position occurred before since the last capture or pawn move. Only positions reached by
+     * {@link #make(int)} on this board or the board it was copied from are known.
+     *
+     * @return whether this position is a repetition
+     */
+    public boolean isRepetition() {
+        return repetitions(1) >= 1;
+    }
+
+    /**
+     * @return whether this position occurred at least twice before since the last capture or pawn move
+     * @see #isRepetition()
+     */
+    public boolean isThreefold() {
+        return repetitions(2) >= 2;
+    }
+
+    /**
+     * Counts the earlier occurrences of this position on the undo stack. Only the plies since the last irreversible
+     * move with the same player to move are scanned, the closest one being four plies back.
+     *
+     * @param limit the count after which to stop scanning
+     * @return the number of earlier occurrences, at most {@code limit}
+     */
+    private int repetitions(final int limit) {
+        final int end = Math.max(0, ply - halfmoveClock);
+
+        int result = 0;
+
+        for (int i = ply - 4; i >= end; i -= 2) {
+            if (undoHashes[i] == zobristHash && ++result == limit) {
+                return result;
+            }
+        }
+
+        return result;
+    }
+
+    // endregion
+
+    // region Checks
+    //     _____ _    _ ______ _____ _  __ _____
+    //    / ____| |  | |  ____/ ____| |/ // ____|
+    //   | |    | |__| | |__ | |    | ' /| (___
+    //   | |    |  __  |  __|| |    |  <  \___ \
+    //   | |____| |  | | |___| |____| . \ ____) |
+    //    \_____|_|  |_|______\_____|_|\_\_____/
+
+    public boolean isInvalidPosition() {
+        return isInCheck(turn.opposite());
+    }
+
+    public boolean isInCheck() {
+        return isInCheck(turn);
+    }
+
+    public boolean isInCheck(final Color color) {
+        Objects.requireNonNull(color);
+
+        if (color == Color.WHITE) {
+            return isInCheck(Color.WHITE, BLACK_PIECES);
+        }
+
+        return isInCheck(Color.BLACK, WHITE_PIECES);
+    }
+
+    public boolean isInCheck(final Color color, final Square square) {
+        Objects.requireNonNull(color);
+
+        if (color == Color.WHITE) {
+            return isInCheck(Color.WHITE, square.getOccupiedBitMask(), BLACK_PIECES, occupancy);
+        }
+
+        return isInCheck(Color.BLACK, square.getOccupiedBitMask(), WHITE_PIECES, occupancy);
+    }
+
+    /**
+     * Whether a move gives check, without making it. Direct checks are looked up in the squares from which each piece
+     * type attacks the opponent king, discovered checks in the pieces standing between a slider of the active player
+     * and the opponent king. Castling, promotions and en passant captures are resolved on the occupancy after the move.
+     *
+     * @param move a legal move of this position
+     * @return {@code true} if the opponent is in check after the move
+     */
+    public boolean givesCheck(final int move) {
+        final int color = turn == Color.WHITE ? WHITE : BLACK;
+        final int self = color << MAILBOX_COLOR_SHIFT;
+        final long opponentKing = pieces[(color ^ 1) << MAILBOX_COLOR_SHIFT | KING];
+        final int opponentKingIndex = Long.numberOfTrailingZeros(opponentKing);
+
+        if (!validCheckSquares) {
+            computeCheckSquares(color, opponentKingIndex);
+        }
+
+        final int sourceSquareIndex = (move & SOURCE_SQUARE_INDEX_MASK) >> SOURCE_SQUARE_INDEX_SHIFT;
+        final int targetSquareIndex = (move & TARGET_SQUARE_INDEX_MASK) >> TARGET_SQUARE_INDEX_SHIFT;
+        final long sourceSquare = 1L << sourceSquareIndex;
+        final long targetSquare = 1L << targetSquareIndex;
+
+        if ((move & CASTLE_MOVE_MASK) != 0) {
+            final boolean kingSide = targetSquareIndex > sourceSquareIndex;
+            final int rookSourceIndex = kingSide ? targetSquareIndex + 1 : targetSquareIndex - 2;
+            final int rookTargetIndex = kingSide ? targetSquareIndex - 1 : targetSquareIndex + 1;
+
+            final long occupied = occupancy ^ sourceSquare ^ targetSquare ^ 1L << rookSourceIndex ^ 1L << rookTargetIndex;
+
+            return (SLIDING_ATTACKS.rookAttacks(occupied, rookTargetIndex) & opponentKing) != 0L;
+        }
+
+        final int promote = (move & PROMOTION_PIECE_MASK) >> PROMOTION_PIECE_SHIFT;
+
+        if (promote == NO_PIECE) {
+            if ((checkSquares[(move & PIECE_MOVED_MASK) >> PIECE_MOVED_SHIFT] & targetSquare) != 0L) {
+                return true;
+            }
+        } else if ((pieceAttacks(promote, targetSquareIndex, occupancy ^ sourceSquare) & opponentKing) != 0L) {
+            return true;
+        }
+
+        //a piece leaving the line between a slider and the king checks unless it stays on that line
+        if ((discoveredCheckCandidates & sourceSquare) != 0L && (LINE[sourceSquareIndex][opponentKingIndex] & targetSquare) == 0L) {
+            return true;
+        }
+
+        if ((move & EN_PASSANT_ATTACK_MASK) != 0) {
+            final long capturedSquare = 1L << (targetSquareIndex - PAWN_PUSH_OFFSETS[color]);
+            final long occupied = occupancy ^ sourceSquare ^ targetSquare ^ capturedSquare;
+
+            return (SLIDING_ATTACKS.rookAttacks(occupied, opponentKingIndex) & (pieces[self | ROOK] | pieces[self | QUEEN])) != 0L
+                    || (SLIDING_ATTACKS.bishopAttacks(occupied, opponentKingIndex) & (pieces[self | BISHOP] | pieces[self | QUEEN])) != 0L;
+        }
+
+        return false;
+    }
+
+    private void computeCheckSquares(final int color, final int opponentKingIndex) {
+        final int self = color << MAILBOX_COLOR_SHIFT;
+        final long rookAttacks = SLIDING_ATTACKS.rookAttacks(occupancy, opponentKingIndex);
+        final long bishopAttacks = SLIDING_ATTACKS.bishopAttacks(occupancy, opponentKingIndex);
+
+        checkSquares[PAWN] = PAWN_ATTACKS[color ^ 1][opponentKingIndex];
+        checkSquares[KNIGHT] = KNIGHT_ATTACKS[opponentKingIndex];
+        checkSquares[BISHOP] = bishopAttacks;
+        checkSquares[ROOK] = rookAttacks;
+        checkSquares[QUEEN] = rookAttacks | bishopAttacks;
+        checkSquares[KING] = 0L;
+
+        //sliders of the active player that would attack the opponent king on an empty board
+        long snipers = (SLIDING_ATTACKS.rookAttacks(0L, opponentKingIndex) & (pieces[self | ROOK] | pieces[self | QUEEN]))
+                | (SLIDING_ATTACKS.bishopAttacks(0L, opponentKingIndex) & (pieces[self | BISHOP] | pieces[self | QUEEN]));
+
+        discoveredCheckCandidates = 0L;
+
+        while (snipers != 0L) {
+            final long sniper = Long.lowestOneBit(snipers);
+            snipers &= ~sniper;
+
+            final long blockers = BETWEEN[opponentKingIndex][Long.numberOfTrailingZeros(sniper)] & occupancy;
+
+            if (Long.bitCount(blockers) == 1) {
+                discoveredCheckCandidates |= blockers & pieces[self | OCCUPANCY];
+            }
+        }
+
+        validCheckSquares = true;
+    }
+
+    private static long pieceAttacks(final int piece, final int index, final long occupancy) {
+        switch (piece) {
+            case KNIGHT:
+                return KNIGHT_ATTACKS[index];
+            case BISHOP:
+                return SLIDING_ATTACKS.bishopAttacks(occupancy, index);
+            case ROOK:
+                return SLIDING_ATTACKS.rookAttacks(occupancy, index);
+            case QUEEN:
+                return SLIDING_ATTACKS.queenAttacks(occupancy, index);
+            default:
+                throw new IllegalArgumentException("No attack lookup for piece " + piece);
+        }
+    }
+
+    /**
+     * Returns all squares attacked by {@code color}, including squares occupied by its own pieces. The result is cached
+     * until the next {@link #make(int)} or {@link #unmake(int)}.
+     *
+     * @param color the attacking player
+     * @return the attacked squares
+     */
+    public long attackedSquares(final Color color) {
+        Objects.requireNonNull(color);
+
+        return attackMap(color == Color.WHITE ? WHITE : BLACK);
+    }
+
+    /**
+     * @param square the attacked square
+     * @param color  the attacking player
+     * @return the pieces of {@code color} attacking {@code square}
+     */
+    public long attackersTo(final Square square, final Color color) {
+        Objects.requireNonNull(square);
+        Objects.requireNonNull(color);
+
+        if (color == Color.WHITE) {
+            return attackersTo(square.getBitboardIndex(), WHITE, occupancy);
+        }
+
+        return attackersTo(square.getBitboardIndex(), BLACK, occupancy);
+    }
+
+    private long attackMap(final int color) {
+        final int mask = 1 << color;
+
+        if ((validAttackMaps & mask) == 0) {
+            attackMaps[color] = computeAttackMap(color << MAILBOX_COLOR_SHIFT, PAWN_ATTACKS[color], occupancy);
+            validAttackMaps |= mask;
+        }
+
+        return attackMaps[color];
+    }
+
+    private long computeAttackMap(final int attacker, final long[] pawnAttacks, final long occupancy) {
+        long attacks = 0L;
+
+        long rookSliders = pieces[attacker | ROOK] | pieces[attacker | QUEEN];
+
+        while (rookSliders != 0L) {
+            final int index = Long.numberOfTrailingZeros(rookSliders);
+            rookSliders &= rookSliders - 1L;
 
-        if (enPassant != 0L) {
-            hash ^= ZobristHashing.hashEnPassant(Long.numberOfTrailingZeros(enPassant));
+            attacks |= SLIDING_ATTACKS.rookAttacks(occupancy, index);
         }
 
-        if (white.kingSideCastle) {
-            hash ^= ZobristHashing.whiteKingCastleHash();
-        }
-        if (white.queenSideCastle) {
-            hash ^= ZobristHashing.whiteQueenCastleHash();
-        }
-        if (black.kingSideCastle) {
-            hash ^= ZobristHashing.blackKingCastleHash();
-        }
-        if (black.queenSideCastle) {
-            hash ^= ZobristHashing.blackQueenCastleHash();
-        }
+        long bishopSliders = pieces[attacker | BISHOP] | pieces[attacker | QUEEN];
 
-        if (turn == Color.BLACK) {
-            hash ^= ZobristHashing.getBlacksTurnHash();
+        while (bishopSliders != 0L) {
+            final int index = Long.numberOfTrailingZeros(bishopSliders);
+            bishopSliders &= bishopSliders - 1L;
+
+            attacks |= SLIDING_ATTACKS.bishopAttacks(occupancy, index);
         }
 
-        return hash;
-    }
+        long knights = pieces[attacker | KNIGHT];
 
-    public boolean equalsZobrist(final Bitboard bitboard) {
-        return white.equals(bitboard.white) && black.equals(bitboard.black) && enPassant == bitboard.enPassant;
-    }
+        while (knights != 0L) {
+            final int index = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1L;
 
-    // endregion
+            attacks |= KNIGHT_ATTACKS[index];
+        }
 
-    // region Checks
-    //     _____ _    _ ______ _____ _  __ _____
-    //    / ____| |  | |  ____/ ____| |/ // ____|
-    //   | |    | |__| | |__ | |    | ' /| (___
-    //   | |    |  __  |  __|| |    |  <  \___ \
-    //   | |____| |  | | |___| |____| . \ ____) |
-    //    \_____|_|  |_|______\_____|_|\_\_____/
+        long pawns = pieces[attacker | PAWN];
 
-    public boolean isInvalidPosition() {
-        return isInCheck(turn.opposite());
-    }
+        while (pawns != 0L) {
+            final int index = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1L;
 
-    public boolean isInCheck() {
-        return isInCheck(turn);
-    }
+            attacks |= pawnAttacks[index];
+        }
 
-    public boolean isInCheck(final Color color) {
-        Objects.requireNonNull(color);
+        long kings = pieces[attacker | KING];
 
-        if (color == Color.WHITE) {
-            return isInCheck(Color.WHITE, black);
+        while (kings != 0L) {
+            final int index = Long.numberOfTrailingZeros(kings);
+            kings &= kings - 1L;
+
+            attacks |= KING_ATTACKS[index];
         }
 
-        return isInCheck(Color.BLACK, white);
+        return attacks;
     }
 
-    public boolean isInCheck(final Color color, final Square square) {
-        Objects.requireNonNull(color);
-
-        final long occupancy = white.occupancy() | black.occupancy();
-        if (color == Color.WHITE) {
-            return isInCheck(Color.WHITE, square.getOccupiedBitMask(), black, occupancy);
-        }
+    private long attackersTo(final int index, final int color, final long occupancy) {
+        final int attacker = color << MAILBOX_COLOR_SHIFT;
+        final long[] reversePawnAttacks = PAWN_ATTACKS[color ^ 1];
 
-        return isInCheck(Color.BLACK, square.getOccupiedBitMask(), white, occupancy);
+        return (SLIDING_ATTACKS.rookAttacks(occupancy, index) & (pieces[attacker | ROOK] | pieces[attacker | QUEEN]))
+                | (SLIDING_ATTACKS.bishopAttacks(occupancy, index) & (pieces[attacker | BISHOP] | pieces[attacker | QUEEN]))
+                | (KNIGHT_ATTACKS[index] & pieces[attacker | KNIGHT])
+                | (reversePawnAttacks[index] & pieces[attacker | PAWN])
+                | (KING_ATTACKS[index] & pieces[attacker | KING]);
     }
 
-    private boolean isInCheck(final Color color, final PlayerBoard opponent) {
+    private boolean isInCheck(final Color color, final int opponent) {
         long selfKings;
-        final long occupancy = white.occupancy() | black.occupancy();
 
         if (color == Color.WHITE) {
-            selfKings = white.kings;
+            selfKings = pieces[WHITE_PIECES | KING];
         } else {
-            selfKings = black.kings;
+            selfKings = pieces[BLACK_PIECES | KING];
+        }
+
+        final int opponentColor = color == Color.WHITE ? BLACK : WHITE;
+
+        if ((validAttackMaps & 1 << opponentColor) != 0) {
+            return (attackMap(opponentColor) & selfKings) != 0L;
         }
 
         while (selfKings != 0L) {
@@ -1049,24 +2525,24 @@ public class Bitboard {
         return false;
     }
 
-    private static boolean isInCheck(final Color color, final long square, final PlayerBoard opponent, final long occupancy) {
+    private boolean isInCheck(final Color color, final long square, final int opponent, final long occupancy) {
         final int index = Long.numberOfTrailingZeros(square);
 
-        final long rookAttacks = MagicBitboard.ROOK.attacks(occupancy, index);
+        final long rookAttacks = SLIDING_ATTACKS.rookAttacks(occupancy, index);
 
-        if ((rookAttacks & (opponent.rooks | opponent.queens)) != 0L) {
+        if ((rookAttacks & (pieces[opponent | ROOK] | pieces[opponent | QUEEN])) != 0L) {
             return true;
         }
 
-        final long bishopAttacks = MagicBitboard.BISHOP.attacks(occupancy, index);
+        final long bishopAttacks = SLIDING_ATTACKS.bishopAttacks(occupancy, index);
 
-        if ((bishopAttacks & (opponent.bishops | opponent.queens)) != 0L) {
+        if ((bishopAttacks & (pieces[opponent | BISHOP] | pieces[opponent | QUEEN])) != 0L) {
             return true;
         }
 
         final long knightAttacks = KNIGHT_ATTACKS[index];
 
-        if ((knightAttacks & opponent.knights) != 0L) {
+        if ((knightAttacks & pieces[opponent | KNIGHT]) != 0L) {
             return true;
         }
 
@@ -1080,13 +2556,13 @@ public class Bitboard {
             pawnAttacks = 0L;
         }
 
-        if ((pawnAttacks & opponent.pawns) != 0L) {
+        if ((pawnAttacks & pieces[opponent | PAWN]) != 0L) {
             return true;
         }
 
         final long kingAttacks = KING_ATTACKS[index];
 
-        return (kingAttacks & opponent.kings) != 0L;
+        return (kingAttacks & pieces[opponent | KING]) != 0L;
     }
 
     // endregion
@@ -1100,60 +2576,83 @@ public class Bitboard {
     //   |_____/   |_|  |_|  \_\_____|_| \_|\_____|  \_____|______|_| \_|______|_|  \_\/_/    \_\_|  |_____\____/|_| \_|
 
     public String fen() {
-        final StringBuilder stringBuilder = new StringBuilder("................................................................");
+        return appendFen(new StringBuilder(90)).toString();
+    }
 
-        for (final Square square : SQUARES) {
-            final ColoredPiece piece = getPiece(square);
+    /**
+     * Appends the FEN of this position in a single pass over the mailbox, for example to a builder reused for many
+     * positions.
+     *
+     * @param target the builder to append to
+     * @return {@code target}
+     */
+    public StringBuilder appendFen(final StringBuilder target) {
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+
+            for (int index = rank * 8; index < rank * 8 + 8; index++) {
+                final char piece = FEN_PIECES[mailbox[index]];
+
+                if (piece == 0) {
+                    empty++;
+                    continue;
+                }
+
+                if (empty != 0) {
+                    target.append((char) ('0' + empty));
+                    empty = 0;
+                }
 
-            if (piece == null) {
-                continue;
+                target.append(piece);
             }
 
-            final int index = (8 - square.getRank().getIndex() - 1) * 8 + square.getFile().getIndex();
+            if (empty != 0) {
+                target.append((char) ('0' + empty));
+            }
 
-            stringBuilder.setCharAt(index, piece.getSan());
+            if (rank != 0) {
+                target.append('/');
+            }
         }
 
-        String result = stringBuilder.toString()
-                                     .replaceAll("(?<=\\G.{8})", "/")
-                                     .replaceFirst("/$", "");
-
-        while (true) {
-            final Pattern compile = Pattern.compile("^[^.]*(\\.+).*$");
+        target.append(' ').append(turn.getFen()).append(' ');
 
-            final Matcher matcher = compile.matcher(result);
+        appendCastlingAvailability(target);
 
-            if (!matcher.matches()) {
-                final StringBuilder castle = new StringBuilder();
+        target.append(' ');
 
-                if (white.kingSideCastle) {
-                    castle.append("K");
-                }
+        if (enPassant == 0L) {
+            target.append('-');
+        } else {
+            final Square square = SQUARES[Long.numberOfTrailingZeros(enPassant)];
 
-                if (white.queenSideCastle) {
-                    castle.append("Q");
-                }
+            target.append(square.getFile().getFen()).append(square.getRank().getFen());
+        }
 
-                if (black.kingSideCastle) {
-                    castle.append("k");
-                }
+        return target.append(' ').append(halfmoveClock).append(' ').append(fullmoveClock);
+    }
 
-                if (black.queenSideCastle) {
-                    castle.append("q");
-                }
+    private void appendCastlingAvailability(final StringBuilder target) {
+        final int length = target.length();
 
-                if (castle.length() == 0) {
-                    castle.append("-");
-                }
+        if (kingSideCastle[WHITE]) {
+            target.append('K');
+        }
 
-                final String enPassantString = enPassant == 0L ? "-" : SQUARES[Long.numberOfTrailingZeros(enPassant)].getFen();
+        if (queenSideCastle[WHITE]) {
+            target.append('Q');
+        }
 
-                return result + " " + turn.getFen() + " " + castle + " " + enPassantString + " " + halfmoveClock + " " + fullmoveClock;
-            }
+        if (kingSideCastle[BLACK]) {
+            target.append('k');
+        }
 
-            final String group = matcher.group(1);
+        if (queenSideCastle[BLACK]) {
+            target.append('q');
+        }
 
-            result = result.replaceFirst(Pattern.quote(group), Integer.toString(group.length()));
+        if (target.length() == length) {
+            target.append('-');
         }
     }
 
@@ -1181,7 +2680,10 @@ public class Bitboard {
         addLine(resultJoiner, "turn", turn.toString());
         addLine(resultJoiner, "halfmove clock", Integer.toString(halfmoveClock));
         addLine(resultJoiner, "fullmove clock", Integer.toString(fullmoveClock));
-        addLine(resultJoiner, "castle", Fen.parse(fen()).getCastlingAvailability());
+        final StringBuilder castle = new StringBuilder(4);
+        appendCastlingAvailability(castle);
+
+        addLine(resultJoiner, "castle", castle.toString());
         addLine(resultJoiner, "enPassant", enPassant == 0L ? "-" : SQUARES[Long.numberOfTrailingZeros(enPassant)].toString());
         resultJoiner.add("╚═══════════════════════════════════╝");
 
@@ -1212,296 +2714,321 @@ public class Bitboard {
     //   |_|  |_|\____/   \/   |______| |_____/ \____/_/    \____/|_| \_|_____/ \____/
 
     public void make(final BBMove bbMove) {
-        final PlayerBoard self;
-        final PlayerBoard opponent;
+        make(bbMove.bits);
+    }
 
+    /**
+     * Makes a move generated for this position. The irreversible state of this position is saved on the undo stack,
+     * so moves have to be unmade in reverse order.
+     *
+     * @param bits the move
+     */
+    public void make(final int bits) {
         final boolean whiteTurn = turn == Color.WHITE;
 
-        if (whiteTurn) {
-            self = white;
-            opponent = black;
-        } else {
-            self = black;
-            opponent = white;
-
-            fullmoveClock += 1;
-        }
-
-        final long bits = bbMove.bits;
+        final int color = whiteTurn ? WHITE : BLACK;
+        final int opponentColor = color ^ 1;
 
-        if ((bits & SELF_LOST_KING_SIDE_CASTLE_MASK) != 0L) {
-            self.kingSideCastle = false;
-        }
-
-        if ((bits & SELF_LOST_QUEEN_SIDE_CASTLE_MASK) != 0L) {
-            self.queenSideCastle = false;
-        }
+        final int self = color << MAILBOX_COLOR_SHIFT;
+        final int opponent = opponentColor << MAILBOX_COLOR_SHIFT;
 
-        if ((bits & OPPONENT_LOST_KING_SIDE_CASTLE_MASK) != 0L) {
-            opponent.kingSideCastle = false;
-        }
+        pushUndoState();
 
-        if ((bits & OPPONENT_LOST_QUEEN_SIDE_CASTLE_MASK) != 0L) {
-            opponent.queenSideCastle = false;
+        if (!whiteTurn) {
+            fullmoveClock += 1;
         }
 
-        final int sourceSquareIndex = (int) ((bits & SOURCE_SQUARE_INDEX_MASK) >> SOURCE_SQUARE_INDEX_SHIFT);
-        final int targetSquareIndex = (int) ((bits & TARGET_SQUARE_INDEX_MASK) >> TARGET_SQUARE_INDEX_SHIFT);
+        final int sourceSquareIndex = (bits & SOURCE_SQUARE_INDEX_MASK) >> SOURCE_SQUARE_INDEX_SHIFT;
+        final int targetSquareIndex = (bits & TARGET_SQUARE_INDEX_MASK) >> TARGET_SQUARE_INDEX_SHIFT;
 
         final long sourceSquare = 1L << sourceSquareIndex;
         final long targetSquare = 1L << targetSquareIndex;
 
-        if ((bits & CASTLE_MOVE_MASK) != 0L) {
+        final int pieceMoved = (bits & PIECE_MOVED_MASK) >> PIECE_MOVED_SHIFT;
+        final int pieceAttacked = (bits & PIECE_ATTACKED_MASK) >> PIECE_ATTACKED_SHIFT;
+
+        long hash = zobristHash ^ zobristDelta(bits, color) ^ revokeCastleRights(color, sourceSquareIndex, targetSquareIndex);
+
+        if ((bits & CASTLE_MOVE_MASK) != 0) {
             if (targetSquare == Square.C1.getOccupiedBitMask()) {
-                doCastle(self, Square.A1, Square.E1, Square.D1, Square.C1);
+                doCastle(color, Square.A1, Square.E1, Square.D1, Square.C1);
             } else if (targetSquare == Square.G1.getOccupiedBitMask()) {
-                doCastle(self, Square.H1, Square.E1, Square.F1, Square.G1);
+                doCastle(color, Square.H1, Square.E1, Square.F1, Square.G1);
             } else if (targetSquare == Square.C8.getOccupiedBitMask()) {
-                doCastle(self, Square.A8, Square.E8, Square.D8, Square.C8);
+                doCastle(color, Square.A8, Square.E8, Square.D8, Square.C8);
             } else if (targetSquare == Square.G8.getOccupiedBitMask()) {
-                doCastle(self, Square.H8, Square.E8, Square.F8, Square.G8);
-            }
-        } else if ((bits & EN_PASSANT_ATTACK_MASK) != 0L) {
-            self.pawns &= ~sourceSquare;
-            self.pawns |= targetSquare;
-
-            if (whiteTurn) {
-                opponent.unsetAll(targetSquare >> 8);
-            } else {
-                opponent.unsetAll(targetSquare << 8);
+                doCastle(color, Square.H8, Square.E8, Square.F8, Square.G8);
             }
         } else {
-            switch (((int) ((bits & PIECE_MOVED_MASK) >> PIECE_MOVED_SHIFT))) {
-                case KING:
-                    self.kings = (self.kings & ~sourceSquare) | targetSquare;
-                    break;
-                case QUEEN:
-                    self.queens = (self.queens & ~sourceSquare) | targetSquare;
-                    break;
-                case ROOK:
-                    self.rooks = (self.rooks & ~sourceSquare) | targetSquare;
-                    break;
-                case BISHOP:
-                    self.bishops = (self.bishops & ~sourceSquare) | targetSquare;
-                    break;
-                case KNIGHT:
-                    self.knights = (self.knights & ~sourceSquare) | targetSquare;
-                    break;
-                case PAWN:
-                    final int promote = ((int) ((bits & PROMOTION_PIECE_MASK) >> PROMOTION_PIECE_SHIFT));
+            final int promote = (bits & PROMOTION_PIECE_MASK) >> PROMOTION_PIECE_SHIFT;
+            final int pieceTarget = promote == NO_PIECE ? pieceMoved : promote;
 
-                    if (promote == NO_PIECE) {
-                        self.pawns = (self.pawns & ~sourceSquare) | targetSquare;
-                    } else {
-                        self.pawns &= ~sourceSquare;
-                        switch (promote) {
-                            case QUEEN:
-                                self.queens |= targetSquare;
-                                break;
-                            case ROOK:
-                                self.rooks |= targetSquare;
-                                break;
-                            case BISHOP:
-                                self.bishops |= targetSquare;
-                                break;
-                            case KNIGHT:
-                                self.knights |= targetSquare;
-                                break;
-                            default:
-                                throw new IllegalStateException();
-                        }
-                    }
-            }
+            pieces[self | pieceMoved] &= ~sourceSquare;
+            pieces[self | pieceTarget] |= targetSquare;
+            pieces[self | OCCUPANCY] = (pieces[self | OCCUPANCY] & ~sourceSquare) | targetSquare;
+
+            mailbox[sourceSquareIndex] = NO_PIECE;
+            mailbox[targetSquareIndex] = mailboxValue(color, pieceTarget);
 
-            opponent.unsetAll(targetSquare);
+            if (pieceAttacked != NO_PIECE) {
+                final int attackSquareIndex = (bits & EN_PASSANT_ATTACK_MASK) == 0
+                        ? targetSquareIndex
+                        : targetSquareIndex - PAWN_PUSH_OFFSETS[color];
+
+                final long attackSquare = 1L << attackSquareIndex;
+
+                pieces[opponent | pieceAttacked] &= ~attackSquare;
+                pieces[opponent | OCCUPANCY] &= ~attackSquare;
+
+                if (attackSquareIndex != targetSquareIndex) {
+                    mailbox[attackSquareIndex] = NO_PIECE;
+                }
+            }
         }
 
-        final long enPassantSquareIndex = (bits & NEXT_EN_PASSANT_SQUARE_INDEX_MASK) >> NEXT_EN_PASSANT_SQUARE_INDEX_SHIFT;
+        if (enPassant != NO_SQUARE) {
+            hash ^= ZobristHashing.hashEnPassant(Long.numberOfTrailingZeros(enPassant));
+        }
 
-        if (enPassantSquareIndex == 0L) {
+        if ((bits & DOUBLE_PAWN_PUSH_MASK) == 0) {
             enPassant = NO_SQUARE;
         } else {
+            final int enPassantSquareIndex = (sourceSquareIndex + targetSquareIndex) >>> 1;
+
             enPassant = 1L << enPassantSquareIndex;
+            hash ^= ZobristHashing.hashEnPassant(enPassantSquareIndex);
         }
 
-        if ((bits & HALFMOVE_RESET_MASK) == 0L) {
-            halfmoveClock += 1;
-        } else {
+        if (pieceMoved == PAWN || pieceAttacked != NO_PIECE) {
             halfmoveClock = 0;
+        } else {
+            halfmoveClock += 1;
         }
 
+        zobristHash = hash;
+
+        occupancy = pieces[WHITE_PIECES | OCCUPANCY] | pieces[BLACK_PIECES | OCCUPANCY];
+        validAttackMaps = 0;
+        validCheckSquares = false;
+
         turn = turn.opposite();
+
+        if (zobristVerification) {
+            verifyZobristHash(bits);
+        }
     }
 
     public void unmake(final BBMove bbMove) {
+        unmake(bbMove.bits);
+    }
+
+    /**
+     * Unmakes the move last made by {@link #make(int)}.
+     *
+     * @param bits the move
+     */
+    public void unmake(final int bits) {
         turn = turn.opposite();
 
-        final long bits = bbMove.bits;
+        popUndoState();
 
-        halfmoveClock = ((int) ((bits & PREVIOUS_HALFMOVE_MASK) >> PREVIOUS_HALFMOVE_SHIFT));
+        final boolean whiteTurn = turn == Color.WHITE;
 
-        final long enPassantSquareIndex = (bits & PREVIOUS_EN_PASSANT_SQUARE_INDEX_MASK) >> PREVIOUS_EN_PASSANT_SQUARE_INDEX_SHIFT;
+        final int color = whiteTurn ? WHITE : BLACK;
+        final int opponentColor = color ^ 1;
 
-        if (enPassantSquareIndex == 0L) {
-            enPassant = 0L;
-        } else {
-            enPassant = 1L << enPassantSquareIndex;
+        final int self = color << MAILBOX_COLOR_SHIFT;
+        final int opponent = opponentColor << MAILBOX_COLOR_SHIFT;
+
+        if (!whiteTurn) {
+            fullmoveClock -= 1;
         }
 
-        final PlayerBoard self;
-        final PlayerBoard opponent;
+        final int sourceSquareIndex = (bits & SOURCE_SQUARE_INDEX_MASK) >> SOURCE_SQUARE_INDEX_SHIFT;
+        final int targetSquareIndex = (bits & TARGET_SQUARE_INDEX_MASK) >> TARGET_SQUARE_INDEX_SHIFT;
 
-        final boolean whiteTurn = turn == Color.WHITE;
-        if (whiteTurn) {
-            self = white;
-            opponent = black;
+        final long sourceSquare = 1L << sourceSquareIndex;
+        final long targetSquare = 1L << targetSquareIndex;
+
+        final int pieceMoved = (bits & PIECE_MOVED_MASK) >> PIECE_MOVED_SHIFT;
+        final int pieceAttacked = (bits & PIECE_ATTACKED_MASK) >> PIECE_ATTACKED_SHIFT;
+
+        if ((bits & CASTLE_MOVE_MASK) != 0) {
+            if (targetSquare == Square.C1.getOccupiedBitMask()) {
+                undoCastle(color, Square.A1, Square.E1, Square.D1, Square.C1);
+            } else if (targetSquare == Square.G1.getOccupiedBitMask()) {
+                undoCastle(color, Square.H1, Square.E1, Square.F1, Square.G1);
+            } else if (targetSquare == Square.C8.getOccupiedBitMask()) {
+                undoCastle(color, Square.A8, Square.E8, Square.D8, Square.C8);
+            } else if (targetSquare == Square.G8.getOccupiedBitMask()) {
+                undoCastle(color, Square.H8, Square.E8, Square.F8, Square.G8);
+            }
         } else {
-            self = black;
-            opponent = white;
+            final int promote = (bits & PROMOTION_PIECE_MASK) >> PROMOTION_PIECE_SHIFT;
+            final int pieceTarget = promote == NO_PIECE ? pieceMoved : promote;
 
-            fullmoveClock -= 1;
+            pieces[self | pieceTarget] &= ~targetSquare;
+            pieces[self | pieceMoved] |= sourceSquare;
+            pieces[self | OCCUPANCY] = (pieces[self | OCCUPANCY] & ~targetSquare) | sourceSquare;
+
+            mailbox[sourceSquareIndex] = mailboxValue(color, pieceMoved);
+            mailbox[targetSquareIndex] = NO_PIECE;
+
+            if (pieceAttacked != NO_PIECE) {
+                final int attackSquareIndex = (bits & EN_PASSANT_ATTACK_MASK) == 0
+                        ? targetSquareIndex
+                        : targetSquareIndex - PAWN_PUSH_OFFSETS[color];
+
+                final long attackSquare = 1L << attackSquareIndex;
+
+                pieces[opponent | pieceAttacked] |= attackSquare;
+                pieces[opponent | OCCUPANCY] |= attackSquare;
+
+                mailbox[attackSquareIndex] = mailboxValue(opponentColor, pieceAttacked);
+            }
         }
 
-        if ((bits & SELF_LOST_KING_SIDE_CASTLE_MASK) != 0L) {
-            self.kingSideCastle = true;
+        occupancy = pieces[WHITE_PIECES | OCCUPANCY] | pieces[BLACK_PIECES | OCCUPANCY];
+        validAttackMaps = 0;
+        validCheckSquares = false;
+
+        if (zobristVerification) {
+            verifyZobristHash(bits);
         }
+    }
+
+    /**
+     * Revokes the castling rights lost by moving a king or rook from {@code sourceSquareIndex} or capturing a rook on
+     * {@code targetSquareIndex}.
+     *
+     * @return the zobrist delta of the revoked castling rights
+     */
+    private long revokeCastleRights(final int color, final int sourceSquareIndex, final int targetSquareIndex) {
+        final int opponentColor = color ^ 1;
+
+        long delta = 0L;
 
-        if ((bits & SELF_LOST_QUEEN_SIDE_CASTLE_MASK) != 0L) {
-            self.queenSideCastle = true;
+        if (queenSideCastle[color] && (sourceSquareIndex == QUEEN_SIDE_ROOK_SQUARE_INDICES[color] || sourceSquareIndex == KING_SQUARE_INDICES[color])) {
+            queenSideCastle[color] = false;
+            delta ^= QUEEN_SIDE_CASTLE_HASHES[color];
         }
 
-        if ((bits & OPPONENT_LOST_KING_SIDE_CASTLE_MASK) != 0L) {
-            opponent.kingSideCastle = true;
+        if (kingSideCastle[color] && (sourceSquareIndex == KING_SIDE_ROOK_SQUARE_INDICES[color] || sourceSquareIndex == KING_SQUARE_INDICES[color])) {
+            kingSideCastle[color] = false;
+            delta ^= KING_SIDE_CASTLE_HASHES[color];
         }
 
-        if ((bits & OPPONENT_LOST_QUEEN_SIDE_CASTLE_MASK) != 0L) {
-            opponent.queenSideCastle = true;
+        if (queenSideCastle[opponentColor] && targetSquareIndex == QUEEN_SIDE_ROOK_SQUARE_INDICES[opponentColor]) {
+            queenSideCastle[opponentColor] = false;
+            delta ^= QUEEN_SIDE_CASTLE_HASHES[opponentColor];
+        } else if (kingSideCastle[opponentColor] && targetSquareIndex == KING_SIDE_ROOK_SQUARE_INDICES[opponentColor]) {
+            kingSideCastle[opponentColor] = false;
+            delta ^= KING_SIDE_CASTLE_HASHES[opponentColor];
         }
 
-        final int sourceSquareIndex = (int) ((bits & SOURCE_SQUARE_INDEX_MASK) >> SOURCE_SQUARE_INDEX_SHIFT);
-        final int targetSquareIndex = (int) ((bits & TARGET_SQUARE_INDEX_MASK) >> TARGET_SQUARE_INDEX_SHIFT);
+        return delta;
+    }
 
-        final long sourceSquare = 1L << sourceSquareIndex;
-        final long targetSquare = 1L << targetSquareIndex;
+    private void pushUndoState() {
+        if (ply == undoStates.length) {
+            final int capacity = Math.max(INITIAL_UNDO_CAPACITY, ply * 2);
 
-        final int pieceMoved = (int) ((bits & PIECE_MOVED_MASK) >> PIECE_MOVED_SHIFT);
-        final int pieceAttacked = (int) ((bits & PIECE_ATTACKED_MASK) >> PIECE_ATTACKED_SHIFT);
+            undoStates = Arrays.copyOf(undoStates, capacity);
+            undoHashes = Arrays.copyOf(undoHashes, capacity);
+        }
 
-        if ((bits & CASTLE_MOVE_MASK) != 0L) {
-            if (targetSquare == Square.C1.getOccupiedBitMask()) {
-                undoCastle(self, Square.A1, Square.E1, Square.D1, Square.C1);
-            } else if (targetSquare == Square.G1.getOccupiedBitMask()) {
-                undoCastle(self, Square.H1, Square.E1, Square.F1, Square.G1);
-            } else if (targetSquare == Square.C8.getOccupiedBitMask()) {
-                undoCastle(self, Square.A8, Square.E8, Square.D8, Square.C8);
-            } else if (targetSquare == Square.G8.getOccupiedBitMask()) {
-                undoCastle(self, Square.H8, Square.E8, Square.F8, Square.G8);
-            }
-        } else if ((bits & EN_PASSANT_ATTACK_MASK) != 0L) {
-            self.pawns |= sourceSquare;
-            self.pawns &= ~targetSquare;
+        int state = halfmoveClock << UNDO_HALFMOVE_SHIFT;
 
-            final long epAttackTarget;
+        if (enPassant != NO_SQUARE) {
+            state |= Long.numberOfTrailingZeros(enPassant) << UNDO_EN_PASSANT_SQUARE_INDEX_SHIFT;
+        }
 
-            if (whiteTurn) {
-                epAttackTarget = targetSquare >> 8;
-            } else {
-                epAttackTarget = targetSquare << 8;
-            }
+        if (kingSideCastle[WHITE]) {
+            state |= UNDO_WHITE_KING_SIDE_CASTLE_MASK;
+        }
 
-            switch (pieceAttacked) {
-                case KING:
-                    opponent.kings |= epAttackTarget;
-                    break;
-                case QUEEN:
-                    opponent.queens |= epAttackTarget;
-                    break;
-                case ROOK:
-                    opponent.rooks |= epAttackTarget;
-                    break;
-                case BISHOP:
-                    opponent.bishops |= epAttackTarget;
-                    break;
-                case KNIGHT:
-                    opponent.knights |= epAttackTarget;
-                    break;
-                case PAWN:
-                    opponent.pawns |= epAttackTarget;
-                    break;
-            }
-        } else {
-            switch (pieceAttacked) {
-                case KING:
-                    opponent.kings |= targetSquare;
-                    break;
-                case QUEEN:
-                    opponent.queens |= targetSquare;
-                    break;
-                case ROOK:
-                    opponent.rooks |= targetSquare;
-                    break;
-                case BISHOP:
-                    opponent.bishops |= targetSquare;
-                    break;
-                case KNIGHT:
-                    opponent.knights |= targetSquare;
-                    break;
-                case PAWN:
-                    opponent.pawns |= targetSquare;
-                    break;
-            }
+        if (queenSideCastle[WHITE]) {
+            state |= UNDO_WHITE_QUEEN_SIDE_CASTLE_MASK;
+        }
 
-            switch (pieceMoved) {
-                case KING:
-                    self.kings |= sourceSquare;
-                    break;
-                case QUEEN:
-                    self.queens |= sourceSquare;
-                    break;
-                case ROOK:
-                    self.rooks |= sourceSquare;
-                    break;
-                case BISHOP:
-                    self.bishops |= sourceSquare;
-                    break;
-                case KNIGHT:
-                    self.knights |= sourceSquare;
-                    break;
-                case PAWN:
-                    self.pawns |= sourceSquare;
-                    break;
-            }
+        if (kingSideCastle[BLACK]) {
+            state |= UNDO_BLACK_KING_SIDE_CASTLE_MASK;
+        }
+
+        if (queenSideCastle[BLACK]) {
+            state |= UNDO_BLACK_QUEEN_SIDE_CASTLE_MASK;
+        }
+
+        undoStates[ply] = state;
+        undoHashes[ply] = zobristHash;
+        ply++;
+    }
 
-            self.unsetAll(targetSquare);
+    private void popUndoState() {
+        if (ply == 0) {
+            throw new IllegalStateException("No move to unmake:\n" + fen());
         }
+
+        ply--;
+
+        final int state = undoStates[ply];
+
+        halfmoveClock = state >>> UNDO_HALFMOVE_SHIFT;
+
+        final int enPassantSquareIndex = (state & UNDO_EN_PASSANT_SQUARE_INDEX_MASK) >> UNDO_EN_PASSANT_SQUARE_INDEX_SHIFT;
+
+        enPassant = enPassantSquareIndex == 0 ? NO_SQUARE : 1L << enPassantSquareIndex;
+
+        kingSideCastle[WHITE] = (state & UNDO_WHITE_KING_SIDE_CASTLE_MASK) != 0;
+        queenSideCastle[WHITE] = (state & UNDO_WHITE_QUEEN_SIDE_CASTLE_MASK) != 0;
+        kingSideCastle[BLACK] = (state & UNDO_BLACK_KING_SIDE_CASTLE_MASK) != 0;
+        queenSideCastle[BLACK] = (state & UNDO_BLACK_QUEEN_SIDE_CASTLE_MASK) != 0;
+
+        zobristHash = undoHashes[ply];
     }
 
-    private static void doCastle(
-            final PlayerBoard self,
+    private void doCastle(
+            final int color,
             final Square rookSource,
             final Square kingSource,
             final Square rookTarget,
             final Square kingTarget
     ) {
-        self.rooks &= ~rookSource.getOccupiedBitMask();
-        self.kings &= ~kingSource.getOccupiedBitMask();
+        final int self = color << MAILBOX_COLOR_SHIFT;
+
+        pieces[self | ROOK] = (pieces[self | ROOK] & ~rookSource.getOccupiedBitMask()) | rookTarget.getOccupiedBitMask();
+        pieces[self | KING] = (pieces[self | KING] & ~kingSource.getOccupiedBitMask()) | kingTarget.getOccupiedBitMask();
+
+        pieces[self | OCCUPANCY] &= ~(rookSource.getOccupiedBitMask() | kingSource.getOccupiedBitMask());
+        pieces[self | OCCUPANCY] |= rookTarget.getOccupiedBitMask() | kingTarget.getOccupiedBitMask();
 
-        self.rooks |= rookTarget.getOccupiedBitMask();
-        self.kings |= kingTarget.getOccupiedBitMask();
+        mailbox[rookSource.getBitboardIndex()] = NO_PIECE;
+        mailbox[kingSource.getBitboardIndex()] = NO_PIECE;
+
+        mailbox[rookTarget.getBitboardIndex()] = mailboxValue(color, ROOK);
+        mailbox[kingTarget.getBitboardIndex()] = mailboxValue(color, KING);
     }
 
-    private static void undoCastle(
-            final PlayerBoard self,
+    private void undoCastle(
+            final int color,
             final Square rookSource,
             final Square kingSource,
             final Square rookTarget,
             final Square kingTarget
     ) {
-        self.rooks |= rookSource.getOccupiedBitMask();
-        self.kings |= kingSource.getOccupiedBitMask();
+        final int self = color << MAILBOX_COLOR_SHIFT;
+
+        pieces[self | ROOK] = (pieces[self | ROOK] & ~rookTarget.getOccupiedBitMask()) | rookSource.getOccupiedBitMask();
+        pieces[self | KING] = (pieces[self | KING] & ~kingTarget.getOccupiedBitMask()) | kingSource.getOccupiedBitMask();
+
+        pieces[self | OCCUPANCY] &= ~(rookTarget.getOccupiedBitMask() | kingTarget.getOccupiedBitMask());
+        pieces[self | OCCUPANCY] |= rookSource.getOccupiedBitMask() | kingSource.getOccupiedBitMask();
+
+        mailbox[rookSource.getBitboardIndex()] = mailboxValue(color, ROOK);
+        mailbox[kingSource.getBitboardIndex()] = mailboxValue(color, KING);
 
-        self.rooks &= ~rookTarget.getOccupiedBitMask();
-        self.kings &= ~kingTarget.getOccupiedBitMask();
+        mailbox[rookTarget.getBitboardIndex()] = NO_PIECE;
+        mailbox[kingTarget.getBitboardIndex()] = NO_PIECE;
     }
 
     private static int pieceValue(final int piece) {
@@ -1529,28 +3056,36 @@ public class Bitboard {
 
     @ToString
     public static class BBMove {
-        private final long bits;
+        private final int bits;
 
         private final int mvvLva;
         private final int moveOrderValue;
 
 //        private long zobristHashToggle;
 
-        BBMove(final long bits, final int mvvLva, final int squareDiff) {
+        BBMove(final int bits, final int mvvLva, final int moveOrderValue) {
             this.bits = bits;
 
             this.mvvLva = mvvLva;
-            this.moveOrderValue = mvvLva + squareDiff;
+            this.moveOrderValue = moveOrderValue;
         }
 
         public UciMove asUciMove() {
-            return new UciMove(
-                    SQUARES[((int) ((bits & SOURCE_SQUARE_INDEX_MASK) >> SOURCE_SQUARE_INDEX_SHIFT))],
-                    SQUARES[((int) ((bits & TARGET_SQUARE_INDEX_MASK) >> TARGET_SQUARE_INDEX_SHIFT))],
-                    PIECES[(int) ((bits & PROMOTION_PIECE_MASK) >> PROMOTION_PIECE_SHIFT)]
+            return asUciMove(bits);
+        }
+
+        public static UciMove asUciMove(final int bits) {
+            return UciMove.of(
+                    SQUARES[(bits & SOURCE_SQUARE_INDEX_MASK) >> SOURCE_SQUARE_INDEX_SHIFT],
+                    SQUARES[(bits & TARGET_SQUARE_INDEX_MASK) >> TARGET_SQUARE_INDEX_SHIFT],
+                    PIECES[(bits & PROMOTION_PIECE_MASK) >> PROMOTION_PIECE_SHIFT]
             );
         }
 
+        public int getBits() {
+            return bits;
+        }
+
         public int getMvvLvaSquarePieceDifferenceValue() {
             return moveOrderValue;
         }
@@ -1560,136 +3095,12 @@ public class Bitboard {
         }
 
         public boolean isAttack() {
-            return (bits & PIECE_ATTACKED_MASK) != 0L;
+            return (bits & PIECE_ATTACKED_MASK) != 0;
         }
     }
 
     // endregion
 
-    @EqualsAndHashCode
-    private static class PlayerBoard {
-        private long kings;
-        private long queens;
-        private long rooks;
-        private long bishops;
-        private long knights;
-        private long pawns;
-
-        private boolean queenSideCastle;
-        private boolean kingSideCastle;
-
-        PlayerBoard() {
-        }
-
-        PlayerBoard(final PlayerBoard other) {
-            this.kings = other.kings;
-            this.queens = other.queens;
-            this.rooks = other.rooks;
-            this.bishops = other.bishops;
-            this.knights = other.knights;
-            this.pawns = other.pawns;
-
-            this.kingSideCastle = other.kingSideCastle;
-            this.queenSideCastle = other.queenSideCastle;
-        }
-
-        long occupancy() {
-            return kings | queens | rooks | bishops | knights | pawns;
-        }
-
-        @Override
-        public String toString() {
-            final StringJoiner stringJoiner = new StringJoiner("\n");
-
-            stringJoiner.add("***********************");
-            stringJoiner.add("KINGS:");
-            stringJoiner.add(BitboardUtil.toBoardString(kings));
-            stringJoiner.add("QUEENS:");
-            stringJoiner.add(BitboardUtil.toBoardString(queens));
-            stringJoiner.add("ROOKS:");
-            stringJoiner.add(BitboardUtil.toBoardString(rooks));
-            stringJoiner.add("BISHOPS:");
-            stringJoiner.add(BitboardUtil.toBoardString(bishops));
-            stringJoiner.add("KNIGHTS:");
-            stringJoiner.add(BitboardUtil.toBoardString(knights));
-            stringJoiner.add("PAWNS:");
-            stringJoiner.add(BitboardUtil.toBoardString(pawns));
-            stringJoiner.add("queenSideCastle = " + queenSideCastle);
-            stringJoiner.add("kingSideCastle = " + kingSideCastle);
-            stringJoiner.add("***********************");
-
-            return stringJoiner.toString();
-        }
-
-        void unsetAll(final long l) {
-            final long notL = ~l;
-
-            kings &= notL;
-            queens &= notL;
-            rooks &= notL;
-            bishops &= notL;
-            knights &= notL;
-            pawns &= notL;
-        }
-
-        int score() {
-            return Long.bitCount(kings) * KING_VALUE
-                    + Long.bitCount(queens) * QUEEN_VALUE
-                    + Long.bitCount(rooks) * ROOK_VALUE
-                    + Long.bitCount(bishops) * BISHOP_VALUE
-                    + Long.bitCount(knights) * KNIGHT_VALUE
-                    + Long.bitCount(pawns) * PAWN_VALUE;
-        }
-
-        Piece getPiece(final long square) {
-            if ((pawns & square) != 0L) {
-                return Piece.PAWN;
-            }
-            if ((knights & square) != 0L) {
-                return Piece.KNIGHT;
-            }
-            if ((bishops & square) != 0L) {
-                return Piece.BISHOP;
-            }
-            if ((rooks & square) != 0L) {
-                return Piece.ROOK;
-            }
-            if ((queens & square) != 0L) {
-                return Piece.QUEEN;
-            }
-            if ((kings & square) != 0L) {
-                return Piece.KING;
-            }
-            return null;
-        }
-
-        int getPieceConst(final int squareIndex) {
-            return getPieceConst(1L << squareIndex);
-        }
-
-        int getPieceConst(final long square) {
-            if ((pawns & square) != 0L) {
-                return PAWN;
-            }
-            if ((knights & square) != 0L) {
-                return KNIGHT;
-            }
-            if ((bishops & square) != 0L) {
-                return BISHOP;
-            }
-            if ((rooks & square) != 0L) {
-                return ROOK;
-            }
-            if ((queens & square) != 0L) {
-                return QUEEN;
-            }
-            if ((kings & square) != 0L) {
-                return KING;
-            }
-            return NO_PIECE;
-        }
-    }
-
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
@@ -1700,16 +3111,18 @@ public class Bitboard {
         if (enPassant != bitboard.enPassant) return false;
         if (fullmoveClock != bitboard.fullmoveClock) return false;
         if (halfmoveClock != bitboard.halfmoveClock) return false;
-        if (!Objects.equals(black, bitboard.black)) return false;
-        if (!Objects.equals(white, bitboard.white)) return false;
+        if (!Arrays.equals(pieces, bitboard.pieces)) return false;
+        if (!Arrays.equals(kingSideCastle, bitboard.kingSideCastle)) return false;
+        if (!Arrays.equals(queenSideCastle, bitboard.queenSideCastle)) return false;
         return turn == bitboard.turn;
 
     }
 
     @Override
     public int hashCode() {
-        int result = black != null ? black.hashCode() : 0;
-        result = 31 * result + (white != null ? white.hashCode() : 0);
+        int result = Arrays.hashCode(pieces);
+        result = 31 * result + Arrays.hashCode(kingSideCastle);
+        result = 31 * result + Arrays.hashCode(queenSideCastle);
         result = 31 * result + (turn != null ? turn.hashCode() : 0);
         result = 31 * result + (int) (enPassant ^ (enPassant >>> 32));
         result = 31 * result + fullmoveClock;
@@ -1718,6 +3131,30 @@ public class Bitboard {
     }
 
     public String bitboardStrings() {
-        return "white:\n" + white + "\nblack:" + black;
+        return "white:\n" + bitboardStrings(WHITE) + "\nblack:" + bitboardStrings(BLACK);
+    }
+
+    private String bitboardStrings(final int color) {
+        final int player = color << MAILBOX_COLOR_SHIFT;
+        final StringJoiner stringJoiner = new StringJoiner("\n");
+
+        stringJoiner.add("***********************");
+        stringJoiner.add("KINGS:");
+        stringJoiner.add(BitboardUtil.toBoardString(pieces[player | KING]));
+        stringJoiner.add("QUEENS:");
+        stringJoiner.add(BitboardUtil.toBoardString(pieces[player | QUEEN]));
+        stringJoiner.add("ROOKS:");
+        stringJoiner.add(BitboardUtil.toBoardString(pieces[player | ROOK]));
+        stringJoiner.add("BISHOPS:");
+        stringJoiner.add(BitboardUtil.toBoardString(pieces[player | BISHOP]));
+        stringJoiner.add("KNIGHTS:");
+        stringJoiner.add(BitboardUtil.toBoardString(pieces[player | KNIGHT]));
+        stringJoiner.add("PAWNS:");
+        stringJoiner.add(BitboardUtil.toBoardString(pieces[player | PAWN]));
+        stringJoiner.add("queenSideCastle = " + queenSideCastle[color]);
+        stringJoiner.add("kingSideCastle = " + kingSideCastle[color]);
+        stringJoiner.add("***********************");
+
+        return stringJoiner.toString();
     }
 }
@@ -51,14 +51,21 @@ public final class Configuration {
     public long[] generateAllAttacks() {
         final long[] result = new long[numPossibleConfigurations];
 
-        for (final long configuration : possibleConfigurations()) {
+        for (final long configuration : possibleConfigurations) {
             result[hash(configuration)] = generateAttacksForConfiguration(configuration);
         }
 
         return result;
     }
 
-    private long generateAttacksForConfiguration(final long configuration) {
+    /**
+     * @return every subset of the relevant occupancy mask
+     */
+    long[] occupancies() {
+        return possibleConfigurations;
+    }
+
+    long generateAttacksForConfiguration(final long configuration) {
         long result = 0L;
 
         for (final Direction direction : directions) {
@@ -79,21 +86,18 @@ public final class Configuration {
         return result;
     }
 
+    /**
+     * Enumerates all subsets of the mask with the carry-rippler trick, subtracting the mask from the current subset
+     * carries through the unmasked bits and yields the next subset.
+     */
     private long[] possibleConfigurations() {
         final long[] result = new long[numPossibleConfigurations];
 
-        for (int i = 0; i < numPossibleConfigurations; i++) {
-            final String s = BitboardUtil.toPaddedBinaryString(i, numRelevantSquares);
-
-            long current = 0L;
-
-            for (int j = 0; j < numRelevantSquares; j++) {
-                if (s.charAt(j) == '1') {
-                    current = BitboardUtil.setBit(current, relevantSquares.get(j));
-                }
-            }
+        long current = 0L;
 
+        for (int i = 0; i < numPossibleConfigurations; i++) {
             result[i] = current;
+            current = (current - mask) & mask;
         }
 
         return result;
@@ -0,0 +1,118 @@
+package net.marvk.chess.core.bitboards;
+
+/**
+ * Hyperbola quintessence: subtracting the slider {@code s} from the occupancy {@code o} of a line without it flips the
+ * bits up to and including the first blocker above the slider, so {@code (o - s) ^ reverse(reverse(o) - reverse(s))}
+ * masked to the line are the attacks in both directions. Byte swapping reverses lines with at most one square per rank,
+ * ranks use a lookup of the first rank attacks instead.
+ */
+final class HyperbolaSlidingAttacks implements SlidingAttacks {
+    static final HyperbolaSlidingAttacks INSTANCE = new HyperbolaSlidingAttacks();
+
+    private static final int RECORD_SIZE = 3;
+    private static final int FILE = 0;
+    private static final int DIAGONAL = 1;
+    private static final int ANTI_DIAGONAL = 2;
+
+    /**
+     * One record of {@link #RECORD_SIZE} line masks per square, each without the square itself
+     */
+    private final long[] lines = new long[64 * RECORD_SIZE];
+
+    /**
+     * Attacks on the first rank by file and by the occupancy of the six inner squares of the rank
+     */
+    private final byte[] firstRankAttacks = new byte[8 * 64];
+
+    private HyperbolaSlidingAttacks() {
+        for (int index = 0; index < 64; index++) {
+            final int file = index & 7;
+            final int rank = index >> 3;
+
+            for (int other = 0; other < 64; other++) {
+                final int otherFile = other & 7;
+                final int otherRank = other >> 3;
+
+                if (other == index) {
+                    continue;
+                }
+
+                final long square = 1L << other;
+
+                if (otherFile == file) {
+                    lines[index * RECORD_SIZE + FILE] |= square;
+                }
+
+                if (otherRank - otherFile == rank - file) {
+                    lines[index * RECORD_SIZE + DIAGONAL] |= square;
+                }
+
+                if (otherRank + otherFile == rank + file) {
+                    lines[index * RECORD_SIZE + ANTI_DIAGONAL] |= square;
+                }
+            }
+        }
+
+        for (int file = 0; file < 8; file++) {
+            for (int inner = 0; inner < 64; inner++) {
+                final int occupancy = inner << 1;
+
+                int attacks = 0;
+
+                for (int target = file - 1; target >= 0; target--) {
+                    attacks |= 1 << target;
+
+                    if ((occupancy & 1 << target) != 0) {
+                        break;
+                    }
+                }
+
+                for (int target = file + 1; target < 8; target++) {
+                    attacks |= 1 << target;
+
+                    if ((occupancy & 1 << target) != 0) {
+                        break;
+                    }
+                }
+
+                firstRankAttacks[file << 6 | inner] = (byte) attacks;
+            }
+        }
+    }
+
+    @Override
+    public long rookAttacks(final long occupancy, final int squareIndex) {
+        return lineAttacks(occupancy, lines[squareIndex * RECORD_SIZE + FILE], squareIndex) | rankAttacks(occupancy, squareIndex);
+    }
+
+    @Override
+    public long bishopAttacks(final long occupancy, final int squareIndex) {
+        final int record = squareIndex * RECORD_SIZE;
+
+        return lineAttacks(occupancy, lines[record + DIAGONAL], squareIndex) | lineAttacks(occupancy, lines[record + ANTI_DIAGONAL], squareIndex);
+    }
+
+    private static long lineAttacks(final long occupancy, final long line, final int squareIndex) {
+        final long square = 1L << squareIndex;
+
+        long forward = occupancy & line;
+        long reverse = Long.reverseBytes(forward);
+
+        forward -= square;
+        reverse -= Long.reverseBytes(square);
+
+        return (forward ^ Long.reverseBytes(reverse)) & line;
+    }
+
+    private long rankAttacks(final long occupancy, final int squareIndex) {
+        final int rankShift = squareIndex & 56;
+        final int inner = (int) (occupancy >>> (rankShift + 1)) & 63;
+
+        return (firstRankAttacks[(squareIndex & 7) << 6 | inner] & 0xffL) << rankShift;
+    }
+
+    @Override
+    public String toString() {
+        return "hyperbola";
+    }
+}
@@ -32,10 +32,7 @@ public final class MagicBitboard {
                 0x2102005020080c42L, 0x5021000884000a01L, 0x100a004102980402L, 0x440c0608408c106L
         };
 
-        ROOK = new MagicBitboard(
-                square -> Configuration.rookConfiguration(square, rookMagics[square.getBitboardIndex()]),
-                rookMagics
-        );
+        ROOK = new MagicBitboard(square -> Configuration.rookConfiguration(square, rookMagics[square.getBitboardIndex()]));
 
         final long[] bishopMagics = {
                 0x2204a0210c11200L, 0x2204a0210c11200L, 0x4014240400444100L, 0x184040a98002130L,
@@ -56,66 +53,133 @@ public final class MagicBitboard {
                 0x100800210020208L, 0x1120201020110441L, 0x4000407084008480L, 0x2204a0210c11200L
         };
 
-        BISHOP = new MagicBitboard(
-                square -> Configuration.bishopConfiguration(square, bishopMagics[square.getBitboardIndex()]),
-                bishopMagics
-        );
+        BISHOP = new MagicBitboard(square -> Configuration.bishopConfiguration(square, bishopMagics[square.getBitboardIndex()]));
     }
 
-    private final long[] magics;
-
-    private final long[] masks;
-    private final long[] hashShifts;
-    private final int[] hashMasks;
-
-    private final long[][] attacks;
-
+    private static final int RECORD_SIZE = 3;
+    private static final int MASK = 0;
+    private static final int MAGIC = 1;
+    private static final int SHIFT_AND_OFFSET = 2;
+    private static final int OFFSET_SHIFT = 8;
+
+    /**
+     * One record of {@link #RECORD_SIZE} longs per square: the mask of the relevant occupancy, the magic and the hash
+     * shift in the lowest byte with the signed offset of the square's attacks in {@link #attacks} above it. Shifting by
+     * the packed value only uses its lowest six bits, so the hash shift needs no unpacking.
+     */
+    private final long[] records;
+
+    /**
+     * Attacks of all squares in one contiguous table. Squares own the entries from their offset plus their lowest hash
+     * to their offset plus their highest hash and may share entries with other squares if they agree on the attacks,
+     * see {@link MagicSearch}.
+     */
+    private final long[] attacks;
+
+    /**
+     * Uses the magic of every configuration with one index bit per relevant square and lays the tables out back to back
+     */
     private MagicBitboard(final Function<Square, Configuration> configurationGenerator) {
-        this(configurationGenerator, null);
+        this(configurationGenerator, null, null);
     }
 
-    private MagicBitboard(final Function<Square, Configuration> configurationGenerator, final long[] magics) {
-        final boolean predefinedMagic = magics != null;
-
-        this.magics = predefinedMagic ? magics : new long[64];
+    /**
+     * @param shifts  the hash shift of every square, {@code null} for one index bit per relevant square
+     * @param offsets the offset of every square's attacks, may be negative if the square's lowest hash is not
+     *                {@code 0}, {@code null} to lay them out back to back
+     * @throws IllegalStateException if a magic or an overlap maps occupancies with different attacks to one entry, or
+     *                               if an offset maps an occupancy to a negative entry
+     */
+    MagicBitboard(final Function<Square, Configuration> configurationGenerator, final int[] shifts, final int[] offsets) {
+        this.records = new long[64 * RECORD_SIZE];
 
-        this.masks = new long[64];
-        this.hashShifts = new long[64];
-        this.hashMasks = new int[64];
-
-        this.attacks = new long[64][];
+        final Configuration[] configurations = new Configuration[64];
+        int nextOffset = 0;
 
         for (final Square square : SQUARES) {
             final Configuration configuration = configurationGenerator.apply(square);
 
             final int index = square.getBitboardIndex();
+            final int record = index * RECORD_SIZE;
+
+            final int shift = shifts == null ? (int) configuration.getHashShift() : shifts[index];
+            final int offset = offsets == null ? nextOffset : offsets[index];
+
+            configurations[index] = configuration;
+
+            this.records[record + MASK] = configuration.getMask();
+            this.records[record + MAGIC] = configuration.getMagic();
+            this.records[record + SHIFT_AND_OFFSET] = (long) offset << OFFSET_SHIFT | shift;
 
-            if (!predefinedMagic) {
-                this.magics[index] = configuration.getMagic();
+            nextOffset = offset + (1 << (64 - shift));
+        }
+
+        int size = 0;
+
+        for (int index = 0; index < 64; index++) {
+            for (final long occupancy : configurations[index].occupancies()) {
+                final int entry = entry(occupancy, index);
+
+                if (entry < 0) {
+                    throw new IllegalStateException("Negative entry " + entry + " for " + configurations[index].getSquare());
+                }
+
+                size = Math.max(size, entry + 1);
             }
-            this.masks[index] = configuration.getMask();
-            this.hashShifts[index] = configuration.getHashShift();
-            this.hashMasks[index] = configuration.getHashMask();
+        }
+
+        this.attacks = new long[size];
 
-            this.attacks[index] = configuration.generateAllAttacks();
+        for (final Square square : SQUARES) {
+            final int index = square.getBitboardIndex();
+            final Configuration configuration = configurations[index];
+
+            for (final long occupancy : configuration.occupancies()) {
+                final int entry = entry(occupancy, index);
+                final long squareAttacks = configuration.generateAttacksForConfiguration(occupancy);
+
+                //attacks are never empty, an empty entry is free
+                if (attacks[entry] != 0L && attacks[entry] != squareAttacks) {
+                    throw new IllegalStateException("Conflicting attacks for " + square + " at entry " + entry);
+                }
+
+                attacks[entry] = squareAttacks;
+            }
         }
     }
 
     public long attacks(final long occupancy, final Square square) {
-        return attacks[square.getBitboardIndex()][hash(occupancy, square.getBitboardIndex())];
+        return attacks(occupancy, square.getBitboardIndex());
     }
 
     public long attacks(final long occupancy, final int squareIndex) {
-        return attacks[squareIndex][hash(occupancy, squareIndex)];
+        return attacks[entry(occupancy, squareIndex)];
+    }
+
+    private int entry(final long occupancy, final int squareIndex) {
+        final int record = squareIndex * RECORD_SIZE;
+        final long shiftAndOffset = records[record + SHIFT_AND_OFFSET];
+
+        return (int) (shiftAndOffset >> OFFSET_SHIFT) + (int) (((occupancy & records[record + MASK]) * records[record + MAGIC]) >>> shiftAndOffset);
+    }
+
+    int size() {
+        return attacks.length;
     }
 
-    private int hash(final long l, final int squareIndex) {
-        return ((int) ((((l & masks[squareIndex]) * magics[squareIndex]) >> hashShifts[squareIndex]) & hashMasks[squareIndex]));
+    long[] magics() {
+        final long[] result = new long[64];
+
+        for (int index = 0; index < 64; index++) {
+            result[index] = records[index * RECORD_SIZE + MAGIC];
+        }
+
+        return result;
     }
 
     private String generateMagicLongArrayRepresentation() {
         return "final long[] magics = {" +
-                Arrays.stream(magics)
+                Arrays.stream(magics())
                       .mapToObj(Long::toHexString)
                       .map(l -> "0x" + l + "L")
                       .collect(Collectors.joining(", ")) + "};";
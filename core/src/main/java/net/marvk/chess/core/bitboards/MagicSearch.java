@@ -0,0 +1,282 @@
+package net.marvk.chess.core.bitboards;
+
+import net.marvk.chess.core.Square;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Offline search for magics indexing smaller attack tables than the ones found by {@link Configuration}. Occupancies
+ * colliding on the same entry are accepted if they have the same attacks, which allows fewer index bits than relevant
+ * squares and leaves entries of a square's table unused. The tables of all squares are then packed into one array,
+ * overlapping wherever the used entries of one square fall into unused entries of another or agree with them.
+ * <p>
+ * Usage: {@code MagicSearch [millisPerSquare] [seed]}. Starts from the magics currently in {@link MagicBitboard},
+ * prints the magics, shifts and offsets to paste into it, the total table size and its footprint relative to typical
+ * L1 and L2 data caches.
+ */
+public final class MagicSearch {
+    private static final Square[] SQUARES = Square.values();
+
+    private static final int L1_BYTES = 32 * 1024;
+    private static final int L2_BYTES = 256 * 1024;
+
+    private final long nanosPerSquare;
+    private final Random random;
+
+    private long[] table = new long[0];
+    private int[] stamps = new int[0];
+    private int stamp;
+
+    private MagicSearch(final long millisPerSquare, final Random random) {
+        this.nanosPerSquare = millisPerSquare * 1_000_000L;
+        this.random = random;
+    }
+
+    public static void main(final String[] args) {
+        final long millisPerSquare = args.length > 0 ? Long.parseLong(args[0]) : 1_000L;
+        final long seed = args.length > 1 ? Long.parseLong(args[1]) : 0L;
+
+        final MagicSearch search = new MagicSearch(millisPerSquare, new Random(seed));
+
+        final long[] rookMagics = MagicBitboard.ROOK.magics();
+        final long[] bishopMagics = MagicBitboard.BISHOP.magics();
+
+        final Result rook = search.search(square -> Configuration.rookConfiguration(square, rookMagics[square.getBitboardIndex()]));
+        final Result bishop = search.search(square -> Configuration.bishopConfiguration(square, bishopMagics[square.getBitboardIndex()]));
+
+        System.out.println(rook.constants("rook"));
+        System.out.println(bishop.constants("bishop"));
+        System.out.println();
+        System.out.println(rook.summary("rook"));
+        System.out.println(bishop.summary("bishop"));
+        System.out.println(footprint("total", rook.size + bishop.size, rook.baselineSize + bishop.baselineSize));
+    }
+
+    private Result search(final Function<Square, Configuration> configurationGenerator) {
+        final Configuration[] configurations = new Configuration[64];
+        final long[] magics = new long[64];
+        final int[] shifts = new int[64];
+
+        for (final Square square : SQUARES) {
+            final int index = square.getBitboardIndex();
+
+            configurations[index] = configurationGenerator.apply(square);
+
+            final long[] best = searchSquare(configurations[index]);
+
+            magics[index] = best[0];
+            shifts[index] = (int) best[1];
+        }
+
+        final int[] offsets = pack(configurations, magics, shifts);
+
+        //fails if any two squares disagree on a shared entry
+        final MagicBitboard magicBitboard = new MagicBitboard(square -> {
+            final int index = square.getBitboardIndex();
+            final Configuration configuration = configurations[index];
+
+            return new Configuration(configuration.getPiece(), square, magics[index]);
+        }, shifts, offsets);
+
+        final int size = magicBitboard.size();
+        final int baselineSize = Arrays.stream(configurations).mapToInt(c -> c.occupancies().length).sum();
+
+        return new Result(magics, shifts, offsets, size, baselineSize);
+    }
+
+    /**
+     * Samples sparse random magics for the time budget of a square. A magic using one index bit less than the best so
+     * far always wins, among magics with the same number of bits the one with the smallest span of used entries wins,
+     * leaving the most room for other squares at both ends of its table.
+     *
+     * @return the best magic and its shift
+     */
+    private long[] searchSquare(final Configuration configuration) {
+        final long[] occupancies = configuration.occupancies();
+        final long[] attacks = Arrays.stream(occupancies).map(configuration::generateAttacksForConfiguration).toArray();
+
+        long bestMagic = configuration.getMagic();
+        int bestBits = Long.bitCount(configuration.getMask());
+        int bestSpan = span(occupancies, attacks, bestMagic, bestBits);
+
+        final long deadline = System.nanoTime() + nanosPerSquare;
+
+        while (System.nanoTime() < deadline) {
+            final long candidate = random.nextLong() & random.nextLong() & random.nextLong();
+
+            if (Long.bitCount((configuration.getMask() * candidate) >>> 56) < 6) {
+                continue;
+            }
+
+            final int fewerBitsSpan = span(occupancies, attacks, candidate, bestBits - 1);
+
+            if (fewerBitsSpan >= 0) {
+                bestMagic = candidate;
+                bestBits--;
+                bestSpan = fewerBitsSpan;
+                continue;
+            }
+
+            final int span = span(occupancies, attacks, candidate, bestBits);
+
+            if (span >= 0 && span < bestSpan) {
+                bestMagic = candidate;
+                bestSpan = span;
+            }
+        }
+
+        return new long[]{bestMagic, 64 - bestBits};
+    }
+
+    /**
+     * @return the distance from the lowest to the highest entry a magic uses with {@code bits} index bits plus one,
+     * {@code -1} if it maps occupancies with different attacks to the same entry
+     */
+    private int span(final long[] occupancies, final long[] attacks, final long magic, final int bits) {
+        final int size = 1 << bits;
+
+        if (table.length < size) {
+            table = new long[size];
+            stamps = new int[size];
+        }
+
+        stamp++;
+
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+
+        for (int i = 0; i < occupancies.length; i++) {
+            final int hash = (int) ((occupancies[i] * magic) >>> (64 - bits));
+
+            if (stamps[hash] != stamp) {
+                stamps[hash] = stamp;
+                table[hash] = attacks[i];
+                min = Math.min(min, hash);
+                max = Math.max(max, hash);
+            } else if (table[hash] != attacks[i]) {
+                return -1;
+            }
+        }
+
+        return max - min + 1;
+    }
+
+    /**
+     * Places the tables of all squares, largest first, at the lowest offset where every used entry is either free or
+     * already holds the same attacks. Offsets are negative for squares whose lowest used entry is past the start of the
+     * packed table.
+     *
+     * @return the offset of every square
+     */
+    private static int[] pack(final Configuration[] configurations, final long[] magics, final int[] shifts) {
+        final int capacity = IntStream.range(0, 64).map(i -> 1 << (64 - shifts[i])).sum();
+
+        final long[] packed = new long[capacity];
+        final int[] offsets = new int[64];
+
+        final Integer[] order = IntStream.range(0, 64).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> shifts[i]).thenComparingInt(i -> i));
+
+        for (final int index : order) {
+            final Configuration configuration = configurations[index];
+
+            final long[] occupancies = configuration.occupancies();
+            final int[] hashes = new int[occupancies.length];
+            final long[] attacks = new long[occupancies.length];
+
+            int minHash = Integer.MAX_VALUE;
+
+            for (int i = 0; i < occupancies.length; i++) {
+                hashes[i] = (int) ((occupancies[i] * magics[index]) >>> shifts[index]);
+                attacks[i] = configuration.generateAttacksForConfiguration(occupancies[i]);
+                minHash = Math.min(minHash, hashes[i]);
+            }
+
+            int offset = -minHash;
+
+            while (!fits(packed, offset, hashes, attacks)) {
+                offset++;
+            }
+
+            for (int i = 0; i < hashes.length; i++) {
+                packed[offset + hashes[i]] = attacks[i];
+            }
+
+            offsets[index] = offset;
+        }
+
+        return offsets;
+    }
+
+    /**
+     * Attacks are never empty, so an empty entry is a free one
+     */
+    private static boolean fits(final long[] packed, final int offset, final int[] hashes, final long[] attacks) {
+        for (int i = 0; i < hashes.length; i++) {
+            final long entry = packed[offset + hashes[i]];
+
+            if (entry != 0L && entry != attacks[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static String footprint(final String name, final int entries, final int baselineEntries) {
+        final long bytes = entries * (long) Long.BYTES;
+
+        return String.format(
+                "%-8s %,8d entries (baseline %,8d) %,8d KiB, %5.1f x L1d (%d KiB), %5.2f x L2 (%d KiB)",
+                name,
+                entries,
+                baselineEntries,
+                bytes / 1024L,
+                (double) bytes / L1_BYTES,
+                L1_BYTES / 1024,
+                (double) bytes / L2_BYTES,
+                L2_BYTES / 1024
+        );
+    }
+
+    private static final class Result {
+        private final long[] magics;
+        private final int[] shifts;
+        private final int[] offsets;
+        private final int size;
+        private final int baselineSize;
+
+        private Result(final long[] magics, final int[] shifts, final int[] offsets, final int size, final int baselineSize) {
+            this.magics = magics;
+            this.shifts = shifts;
+            this.offsets = offsets;
+            this.size = size;
+            this.baselineSize = baselineSize;
+        }
+
+        private String constants(final String name) {
+            return "final long[] " + name + "Magics = {" + join(Arrays.stream(magics).mapToObj(l -> "0x" + Long.toHexString(l) + "L").toArray(String[]::new)) + "};\n"
+                    + "final int[] " + name + "Shifts = {" + join(Arrays.stream(shifts).mapToObj(Integer::toString).toArray(String[]::new)) + "};\n"
+                    + "final int[] " + name + "Offsets = {" + join(Arrays.stream(offsets).mapToObj(Integer::toString).toArray(String[]::new)) + "};";
+        }
+
+        private String summary(final String name) {
+            return footprint(name, size, baselineSize);
+        }
+
+        private static String join(final String[] values) {
+            final StringJoiner lines = new StringJoiner(",\n        ", "\n        ", "\n");
+
+            for (int i = 0; i < values.length; i += 8) {
+                lines.add(String.join(", ", Arrays.copyOfRange(values, i, Math.min(i + 8, values.length))));
+            }
+
+            return lines.toString();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package net.marvk.chess.core.bitboards;
+
+final class MagicSlidingAttacks implements SlidingAttacks {
+    static final MagicSlidingAttacks INSTANCE = new MagicSlidingAttacks();
+
+    private MagicSlidingAttacks() {
+    }
+
+    @Override
+    public long rookAttacks(final long occupancy, final int squareIndex) {
+        return MagicBitboard.ROOK.attacks(occupancy, squareIndex);
+    }
+
+    @Override
+    public long bishopAttacks(final long occupancy, final int squareIndex) {
+        return MagicBitboard.BISHOP.attacks(occupancy, squareIndex);
+    }
+
+    @Override
+    public String toString() {
+        return "magic";
+    }
+}
@@ -0,0 +1,134 @@
+package net.marvk.chess.core.bitboards;
+
+import net.marvk.chess.core.UciMove;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable primitive move buffer the {@link Bitboard} move generator writes into without allocating. Moves are stored
+ * as their {@link MoveConstants} bit representation, alongside parallel arrays holding the move order scores.
+ * <p>
+ * Move lists are owned by the caller, typically one per ply (see {@link #forPlies(int)}), and are cleared by every
+ * generator call.
+ */
+public final class MoveList {
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int[] mvvLvaValues;
+    private int[] moveOrderValues;
+
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(final int capacity) {
+        this.moves = new int[capacity];
+        this.mvvLvaValues = new int[capacity];
+        this.moveOrderValues = new int[capacity];
+    }
+
+    public static MoveList[] forPlies(final int plies) {
+        final MoveList[] result = new MoveList[plies];
+
+        for (int i = 0; i < plies; i++) {
+            result[i] = new MoveList();
+        }
+
+        return result;
+    }
+
+    void add(final int move, final int mvvLva, final int moveOrderValue) {
+        if (size == moves.length) {
+            grow();
+        }
+
+        moves[size] = move;
+        mvvLvaValues[size] = mvvLva;
+        moveOrderValues[size] = moveOrderValue;
+
+        size++;
+    }
+
+    void swap(final int i, final int j) {
+        final int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+
+        final int mvvLva = mvvLvaValues[i];
+        mvvLvaValues[i] = mvvLvaValues[j];
+        mvvLvaValues[j] = mvvLva;
+
+        final int moveOrderValue = moveOrderValues[i];
+        moveOrderValues[i] = moveOrderValues[j];
+        moveOrderValues[j] = moveOrderValue;
+    }
+
+    private void grow() {
+        final int capacity = moves.length * 2;
+
+        moves = Arrays.copyOf(moves, capacity);
+        mvvLvaValues = Arrays.copyOf(mvvLvaValues, capacity);
+        moveOrderValues = Arrays.copyOf(moveOrderValues, capacity);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(final int index) {
+        return moves[index];
+    }
+
+    public int getMvvLvaValue(final int index) {
+        return mvvLvaValues[index];
+    }
+
+    public int getMvvLvaSquarePieceDifferenceValue(final int index) {
+        return moveOrderValues[index];
+    }
+
+    public boolean isAttack(final int index) {
+        return (moves[index] & MoveConstants.PIECE_ATTACKED_MASK) != 0;
+    }
+
+    public boolean hasAnyAttackMoves() {
+        for (int i = 0; i < size; i++) {
+            if (isAttack(i)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public UciMove asUciMove(final int index) {
+        return Bitboard.BBMove.asUciMove(moves[index]);
+    }
+
+    public Bitboard.BBMove getBBMove(final int index) {
+        return new Bitboard.BBMove(moves[index], mvvLvaValues[index], moveOrderValues[index]);
+    }
+
+    public List<Bitboard.BBMove> toBBMoves() {
+        final List<Bitboard.BBMove> result = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            result.add(getBBMove(i));
+        }
+
+        return result;
+    }
+}
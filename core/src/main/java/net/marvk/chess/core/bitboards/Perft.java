@@ -0,0 +1,223 @@
+package net.marvk.chess.core.bitboards;
+
+import net.marvk.chess.core.UciMove;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaf nodes of the legal move tree of a position up to a given depth. Used to validate and benchmark the
+ * move generator.
+ * <p>
+ * The parallel methods split the root and second level moves into {@link ForkJoinPool} tasks. Tasks hand positions to
+ * each other as {@link PositionSnapshot}s created by copy-make, each task counts its subtree with make/unmake on its
+ * own board.
+ * <p>
+ * If constructed with a {@link PerftCache}, subtree node counts are cached by zobrist hash and depth, so transposed
+ * subtrees are only counted once. The cache may be shared between instances and threads.
+ */
+public final class Perft {
+    /**
+     * Number of plies below the root that are split into parallel tasks
+     */
+    private static final int SPLIT_PLIES = 2;
+
+    /**
+     * Subtrees of at most this depth are always counted sequentially
+     */
+    private static final int SEQUENTIAL_DEPTH = 3;
+
+    private final Bitboard board;
+    private final PerftCache cache;
+
+    /**
+     * @param board the root position, it is copied and not modified
+     */
+    public Perft(final Bitboard board) {
+        this(board, null);
+    }
+
+    /**
+     * @param board the root position, it is copied and not modified
+     * @param cache the node count cache, or {@code null} to count every subtree
+     */
+    public Perft(final Bitboard board, final PerftCache cache) {
+        this.board = new Bitboard(board);
+        this.cache = cache;
+    }
+
+    public long perft(final int depth) {
+        checkDepth(depth, 0);
+
+        return perft(new Bitboard(board), depth, MoveList.forPlies(depth + 1), cache);
+    }
+
+    /**
+     * @return the leaf node count of every legal root move, in generation order
+     */
+    public Map<UciMove, Long> divide(final int depth) {
+        return divide(depth, null);
+    }
+
+    public long parallelPerft(final int depth) {
+        return parallelPerft(depth, ForkJoinPool.commonPool());
+    }
+
+    public long parallelPerft(final int depth, final ForkJoinPool pool) {
+        checkDepth(depth, 0);
+
+        return pool.invoke(new PerftTask(board.snapshot(), depth, SPLIT_PLIES, cache));
+    }
+
+    public Map<UciMove, Long> parallelDivide(final int depth) {
+        return parallelDivide(depth, ForkJoinPool.commonPool());
+    }
+
+    public Map<UciMove, Long> parallelDivide(final int depth, final ForkJoinPool pool) {
+        return divide(depth, pool);
+    }
+
+    private Map<UciMove, Long> divide(final int depth, final ForkJoinPool pool) {
+        checkDepth(depth, 1);
+
+        final MoveList moves = new MoveList();
+        board.generateLegalMoves(moves);
+
+        final PositionSnapshot position = board.snapshot();
+        final List<PerftTask> tasks = new ArrayList<>(moves.size());
+
+        for (int i = 0; i < moves.size(); i++) {
+            final PositionSnapshot child = new PositionSnapshot();
+            position.copyMake(moves.get(i), child);
+
+            tasks.add(new PerftTask(child, depth - 1, pool == null ? 0 : SPLIT_PLIES - 1, cache));
+        }
+
+        if (pool != null) {
+            pool.invoke(new RecursiveTask<Void>() {
+                @Override
+                protected Void compute() {
+                    invokeAll(tasks);
+                    return null;
+                }
+            });
+        }
+
+        final Map<UciMove, Long> result = new LinkedHashMap<>();
+
+        for (int i = 0; i < moves.size(); i++) {
+            final PerftTask task = tasks.get(i);
+
+            result.put(moves.asUciMove(i), pool == null ? task.compute() : task.join());
+        }
+
+        return result;
+    }
+
+    private static void checkDepth(final int depth, final int minimum) {
+        if (depth < minimum) {
+            throw new IllegalArgumentException("Depth has to be at least " + minimum + ", was " + depth);
+        }
+    }
+
+    /**
+     * Sequential perft with bulk counting on the last ply.
+     *
+     * @param board     the position, restored on return
+     * @param depth     the remaining depth
+     * @param moveLists one move list per remaining ply, indexed by depth
+     * @param cache     the node count cache, or {@code null}
+     * @return the leaf node count
+     */
+    static long perft(final Bitboard board, final int depth, final MoveList[] moveLists, final PerftCache cache) {
+        if (depth == 0) {
+            return 1L;
+        }
+
+        final MoveList moves = moveLists[depth];
+
+        if (depth == 1) {
+            board.generateLegalMoves(moves);
+            return moves.size();
+        }
+
+        final long zobristHash = board.zobristHash();
+
+        if (cache != null) {
+            final long cached = cache.get(zobristHash, depth);
+
+            if (cached >= 0L) {
+                return cached;
+            }
+        }
+
+        board.generateLegalMoves(moves);
+
+        long nodes = 0L;
+
+        for (int i = 0; i < moves.size(); i++) {
+            final int move = moves.get(i);
+
+            board.make(move);
+            nodes += perft(board, depth - 1, moveLists, cache);
+            board.unmake(move);
+        }
+
+        if (cache != null) {
+            cache.put(zobristHash, depth, nodes);
+        }
+
+        return nodes;
+    }
+
+    private static final class PerftTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final PositionSnapshot position;
+        private final int depth;
+        private final int splitPlies;
+        private final PerftCache cache;
+
+        PerftTask(final PositionSnapshot position, final int depth, final int splitPlies, final PerftCache cache) {
+            this.position = position;
+            this.depth = depth;
+            this.splitPlies = splitPlies;
+            this.cache = cache;
+        }
+
+        @Override
+        protected Long compute() {
+            final Bitboard board = new Bitboard(position);
+
+            if (splitPlies <= 0 || depth <= SEQUENTIAL_DEPTH) {
+                return perft(board, depth, MoveList.forPlies(depth + 1), cache);
+            }
+
+            final MoveList moves = new MoveList();
+            board.generateLegalMoves(moves);
+
+            final List<PerftTask> tasks = new ArrayList<>(moves.size());
+
+            for (int i = 0; i < moves.size(); i++) {
+                final PositionSnapshot child = new PositionSnapshot();
+                position.copyMake(moves.get(i), child);
+
+                tasks.add(new PerftTask(child, depth - 1, splitPlies - 1, cache));
+            }
+
+            invokeAll(tasks);
+
+            long nodes = 0L;
+
+            for (final PerftTask task : tasks) {
+                nodes += task.join();
+            }
+
+            return nodes;
+        }
+    }
+}
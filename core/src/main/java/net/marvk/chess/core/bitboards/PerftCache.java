@@ -0,0 +1,73 @@
+package net.marvk.chess.core.bitboards;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size, always-replace cache of perft node counts keyed by zobrist hash and depth, safe to share between
+ * threads without locking.
+ * <p>
+ * Each entry is two {@code long}s, the packed node count and depth, and the key XOR the packed data. A torn entry
+ * written concurrently by two threads fails the XOR check on probe and is treated as a miss.
+ */
+public final class PerftCache {
+    /**
+     * The largest accepted log2 of the number of entries, beyond it the entry indices no longer fit an {@code int}
+     */
+    public static final int MAX_LOG2_ENTRIES = 29;
+
+    private static final int DEPTH_BITS = 8;
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1L;
+
+    private final long[] entries;
+    private final int mask;
+
+    /**
+     * @param log2Entries log2 of the number of entries, each entry takes 16 bytes
+     * @throws IllegalArgumentException if {@code log2Entries} is not in [0, {@value #MAX_LOG2_ENTRIES}]
+     */
+    public PerftCache(final int log2Entries) {
+        if (log2Entries < 0 || log2Entries > MAX_LOG2_ENTRIES) {
+            throw new IllegalArgumentException("log2Entries has to be in [0, " + MAX_LOG2_ENTRIES + "], was " + log2Entries);
+        }
+
+        this.entries = new long[2 << log2Entries];
+        this.mask = (1 << log2Entries) - 1;
+    }
+
+    /**
+     * @return the node count of the position with the given hash at the given depth, or {@code -1} if not cached
+     */
+    public long get(final long zobristHash, final int depth) {
+        final int index = index(zobristHash);
+
+        final long data = entries[index + 1];
+        final long key = entries[index];
+
+        if ((key ^ data) != zobristHash || (data & DEPTH_MASK) != depth) {
+            return -1L;
+        }
+
+        return data >>> DEPTH_BITS;
+    }
+
+    public void put(final long zobristHash, final int depth, final long nodes) {
+        final int index = index(zobristHash);
+
+        final long data = nodes << DEPTH_BITS | depth;
+
+        entries[index] = zobristHash ^ data;
+        entries[index + 1] = data;
+    }
+
+    public void clear() {
+        Arrays.fill(entries, 0L);
+    }
+
+    private int index(final long zobristHash) {
+        return index(zobristHash, mask);
+    }
+
+    static int index(final long zobristHash, final int mask) {
+        return ((int) zobristHash & mask) << 1;
+    }
+}
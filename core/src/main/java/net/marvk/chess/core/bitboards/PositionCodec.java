@@ -0,0 +1,92 @@
+package net.marvk.chess.core.bitboards;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Fixed width binary format of positions, {@value #BYTES} bytes per position, for datasets, caches and queues that
+ * stream positions without string handling. Holds everything {@link Bitboard#fen()} emits.
+ * <p>
+ * A position consists of four longs written in the byte order of the buffer:
+ * <ol>
+ *     <li>the occupied squares</li>
+ *     <li>the pieces on the first 16 occupied squares in ascending square order, one nibble per piece holding its
+ *     color in the high bit and its {@link MoveConstants} piece in the low bits</li>
+ *     <li>the pieces on the remaining occupied squares</li>
+ *     <li>the state word of {@link PositionSnapshot}: black's turn, the castling rights, the en passant square index
+ *     (0 if none), a 16 bit halfmove clock and a 32 bit fullmove clock</li>
+ * </ol>
+ */
+public final class PositionCodec {
+    public static final int BYTES = 4 * Long.BYTES;
+
+    static final int MAX_PIECES = 32;
+    static final int MAX_HALFMOVE_CLOCK = (int) (PositionSnapshot.HALFMOVE_MASK >>> PositionSnapshot.HALFMOVE_SHIFT);
+
+    private PositionCodec() {
+        throw new AssertionError("No instances of utility class " + PositionCodec.class);
+    }
+
+    /**
+     * Writes {@code board} at the position of {@code target} and advances it by {@value #BYTES} bytes.
+     *
+     * @throws IllegalArgumentException if the board has more than 32 pieces or a halfmove clock above 65535
+     * @throws BufferOverflowException  if fewer than {@value #BYTES} bytes remain in {@code target}
+     */
+    public static void encode(final Bitboard board, final ByteBuffer target) {
+        if (target.remaining() < BYTES) {
+            throw new BufferOverflowException();
+        }
+
+        board.encode(target);
+    }
+
+    /**
+     * Writes all {@code boards} one after another at the position of {@code target}.
+     *
+     * @throws IllegalArgumentException if a board does not fit the format
+     * @throws BufferOverflowException  if {@code target} cannot hold all boards, nothing is written in that case
+     */
+    public static void encodeAll(final Collection<Bitboard> boards, final ByteBuffer target) {
+        if (target.remaining() / BYTES < boards.size()) {
+            throw new BufferOverflowException();
+        }
+
+        for (final Bitboard board : boards) {
+            board.encode(target);
+        }
+    }
+
+    /**
+     * Replaces the position of {@code board} with the one at the position of {@code source} and advances it by
+     * {@value #BYTES} bytes. Clears the undo stack of the board.
+     *
+     * @throws IllegalArgumentException if the bytes are not a position in this format
+     * @throws java.nio.BufferUnderflowException if fewer than {@value #BYTES} bytes remain in {@code source}
+     */
+    public static void decode(final ByteBuffer source, final Bitboard board) {
+        board.decode(source);
+    }
+
+    /**
+     * Decodes every complete position remaining in {@code source} into {@code board}, one after another, and passes
+     * the board to {@code consumer} after each of them. The board is reused, consumers keeping a position have to copy
+     * it. Trailing bytes of an incomplete position remain in the buffer.
+     *
+     * @return the number of decoded positions
+     * @throws IllegalArgumentException if the bytes are not positions in this format
+     */
+    public static int decodeAll(final ByteBuffer source, final Bitboard board, final Consumer<Bitboard> consumer) {
+        int count = 0;
+
+        while (source.remaining() >= BYTES) {
+            board.decode(source);
+            consumer.accept(board);
+            count++;
+        }
+
+        return count;
+    }
+}
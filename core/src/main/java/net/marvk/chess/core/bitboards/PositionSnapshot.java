@@ -0,0 +1,413 @@
+package net.marvk.chess.core.bitboards;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.util.Arrays;
+
+import static net.marvk.chess.core.bitboards.MoveConstants.*;
+
+/**
+ * Compact copy of a position: one bitboard per color and per piece type, the packed game state and the zobrist hash.
+ * <p>
+ * {@link #copyMake(int, PositionSnapshot)} writes the successor of a position into another, typically preallocated,
+ * snapshot instead of modifying a board and undoing the move afterwards, so a snapshot is never shared between the
+ * threads that read it and the ones that write its successors. Moves are generated by loading a snapshot into a
+ * {@link Bitboard}, see {@link Bitboard#load(PositionSnapshot)}.
+ * <p>
+ * Make/unmake on a {@link Bitboard} stays the default for search and sequential perft. The copy-make benchmark is only
+ * ahead because its leaves cost a copy-make instead of a make and an unmake; with bulk counting on the last ply, as in
+ * {@link Perft}, loading the snapshot at every node is as fast as make/unmake or slower (see
+ * {@code BitboardBenchmark.copyMakePerft}). Search additionally needs the mailbox, the undo and repetition stack and the
+ * attack maps of a {@link Bitboard}, which a snapshot lacks. Snapshots are used to hand positions between threads.
+ */
+@EqualsAndHashCode
+@ToString
+public final class PositionSnapshot {
+    static final long BLACKS_TURN_MASK = 0x1L;
+    static final long WHITE_KING_SIDE_CASTLE_MASK = 0x2L;
+    static final long WHITE_QUEEN_SIDE_CASTLE_MASK = 0x4L;
+    static final long BLACK_KING_SIDE_CASTLE_MASK = 0x8L;
+    static final long BLACK_QUEEN_SIDE_CASTLE_MASK = 0x10L;
+    static final int EN_PASSANT_SQUARE_INDEX_SHIFT = 5;
+    static final long EN_PASSANT_SQUARE_INDEX_MASK = 0x3fL << EN_PASSANT_SQUARE_INDEX_SHIFT;
+    static final int HALFMOVE_SHIFT = 11;
+    static final long HALFMOVE_MASK = 0xffffL << HALFMOVE_SHIFT;
+    static final int FULLMOVE_SHIFT = 27;
+    static final long FULLMOVE_MASK = 0xffffffffL << FULLMOVE_SHIFT;
+
+    /**
+     * State mask that keeps the castling rights not lost by moving from or to a square
+     */
+    private static final long[] CASTLE_RIGHTS_KEPT = new long[64];
+
+    static {
+        Arrays.fill(CASTLE_RIGHTS_KEPT, -1L);
+
+        CASTLE_RIGHTS_KEPT[A1] = ~WHITE_QUEEN_SIDE_CASTLE_MASK;
+        CASTLE_RIGHTS_KEPT[E1] = ~(WHITE_QUEEN_SIDE_CASTLE_MASK | WHITE_KING_SIDE_CASTLE_MASK);
+        CASTLE_RIGHTS_KEPT[H1] = ~WHITE_KING_SIDE_CASTLE_MASK;
+        CASTLE_RIGHTS_KEPT[A8] = ~BLACK_QUEEN_SIDE_CASTLE_MASK;
+        CASTLE_RIGHTS_KEPT[E8] = ~(BLACK_QUEEN_SIDE_CASTLE_MASK | BLACK_KING_SIDE_CASTLE_MASK);
+        CASTLE_RIGHTS_KEPT[H8] = ~BLACK_KING_SIDE_CASTLE_MASK;
+    }
+
+    long white;
+    long black;
+
+    long pawns;
+    long knights;
+    long bishops;
+    long rooks;
+    long queens;
+    long kings;
+
+    /**
+     * Turn, castling rights, en passant square index (0 if none), halfmove clock and fullmove clock
+     */
+    long state;
+
+    long zobristHash;
+
+    /**
+     * Creates an empty snapshot to be written by {@link #copyMake(int, PositionSnapshot)} or
+     * {@link Bitboard#snapshot(PositionSnapshot)}
+     */
+    public PositionSnapshot() {
+    }
+
+    /**
+     * @param plies the number of plies
+     * @return one empty snapshot per ply
+     */
+    public static PositionSnapshot[] forPlies(final int plies) {
+        final PositionSnapshot[] result = new PositionSnapshot[plies];
+
+        for (int i = 0; i < plies; i++) {
+            result[i] = new PositionSnapshot();
+        }
+
+        return result;
+    }
+
+    /**
+     * Writes the position after {@code move} into {@code target}, this snapshot is not modified.
+     *
+     * @param move   a legal move of this position, as generated by {@link Bitboard}
+     * @param target the snapshot to be overwritten with the successor position
+     */
+    public void copyMake(final int move, final PositionSnapshot target) {
+        target.set(this);
+
+        final int color = (int) (state & BLACKS_TURN_MASK);
+
+        final int sourceSquareIndex = (move & SOURCE_SQUARE_INDEX_MASK) >> SOURCE_SQUARE_INDEX_SHIFT;
+        final int targetSquareIndex = (move & TARGET_SQUARE_INDEX_MASK) >> TARGET_SQUARE_INDEX_SHIFT;
+
+        final long sourceSquare = 1L << sourceSquareIndex;
+        final long targetSquare = 1L << targetSquareIndex;
+
+        final int pieceMoved = (move & PIECE_MOVED_MASK) >> PIECE_MOVED_SHIFT;
+        final int pieceAttacked = (move & PIECE_ATTACKED_MASK) >> PIECE_ATTACKED_SHIFT;
+
+        long self = color == WHITE ? white : black;
+        long opponent = color == WHITE ? black : white;
+
+        if ((move & CASTLE_MOVE_MASK) != 0) {
+            final boolean queenSide = targetSquareIndex == C1 || targetSquareIndex == C8;
+
+            final long rookSquares = queenSide
+                    ? 1L << (targetSquareIndex - 2) | 1L << (targetSquareIndex + 1)
+                    : 1L << (targetSquareIndex + 1) | 1L << (targetSquareIndex - 1);
+
+            target.kings ^= sourceSquare | targetSquare;
+            target.rooks ^= rookSquares;
+
+            self ^= sourceSquare | targetSquare | rookSquares;
+        } else {
+            final int promote = (move & PROMOTION_PIECE_MASK) >> PROMOTION_PIECE_SHIFT;
+
+            if (pieceAttacked != NO_PIECE) {
+                final long attackSquare = (move & EN_PASSANT_ATTACK_MASK) == 0
+                        ? targetSquare
+                        : 1L << (targetSquareIndex - Bitboard.PAWN_PUSH_OFFSETS[color]);
+
+                target.clear(pieceAttacked, attackSquare);
+                opponent &= ~attackSquare;
+            }
+
+            target.clear(pieceMoved, sourceSquare);
+            target.add(promote == NO_PIECE ? pieceMoved : promote, targetSquare);
+
+            self = (self & ~sourceSquare) | targetSquare;
+        }
+
+        if (color == WHITE) {
+            target.white = self;
+            target.black = opponent;
+        } else {
+            target.white = opponent;
+            target.black = self;
+        }
+
+        long nextState = (state ^ BLACKS_TURN_MASK) & CASTLE_RIGHTS_KEPT[sourceSquareIndex] & CASTLE_RIGHTS_KEPT[targetSquareIndex];
+
+        long hash = zobristHash ^ Bitboard.zobristDelta(move, color) ^ castleRightsHash(state ^ nextState);
+
+        final int enPassantSquareIndex = enPassantSquareIndex();
+
+        if (enPassantSquareIndex != 0) {
+            hash ^= ZobristHashing.hashEnPassant(enPassantSquareIndex);
+        }
+
+        final long nextEnPassantSquareIndex;
+
+        if ((move & DOUBLE_PAWN_PUSH_MASK) == 0) {
+            nextEnPassantSquareIndex = 0L;
+        } else {
+            nextEnPassantSquareIndex = (sourceSquareIndex + targetSquareIndex) >>> 1;
+            hash ^= ZobristHashing.hashEnPassant((int) nextEnPassantSquareIndex);
+        }
+
+        final long halfmoveClock = pieceMoved == PAWN || pieceAttacked != NO_PIECE ? 0L : halfmoveClock() + 1L;
+        final long fullmoveClock = fullmoveClock() + color;
+
+        nextState &= ~(EN_PASSANT_SQUARE_INDEX_MASK | HALFMOVE_MASK | FULLMOVE_MASK);
+        nextState |= nextEnPassantSquareIndex << EN_PASSANT_SQUARE_INDEX_SHIFT
+                | halfmoveClock << HALFMOVE_SHIFT
+                | fullmoveClock << FULLMOVE_SHIFT;
+
+        target.state = nextState;
+        target.zobristHash = hash;
+    }
+
+    /**
+     * @param castleRights castle masks of {@link #state}
+     * @return the zobrist hash of the castling rights
+     */
+    private static long castleRightsHash(final long castleRights) {
+        long hash = 0L;
+
+        if ((castleRights & WHITE_KING_SIDE_CASTLE_MASK) != 0L) {
+            hash ^= ZobristHashing.whiteKingCastleHash();
+        }
+
+        if ((castleRights & WHITE_QUEEN_SIDE_CASTLE_MASK) != 0L) {
+            hash ^= ZobristHashing.whiteQueenCastleHash();
+        }
+
+        if ((castleRights & BLACK_KING_SIDE_CASTLE_MASK) != 0L) {
+            hash ^= ZobristHashing.blackKingCastleHash();
+        }
+
+        if ((castleRights & BLACK_QUEEN_SIDE_CASTLE_MASK) != 0L) {
+            hash ^= ZobristHashing.blackQueenCastleHash();
+        }
+
+        return hash;
+    }
+
+    void set(final PositionSnapshot other) {
+        white = other.white;
+        black = other.black;
+        pawns = other.pawns;
+        knights = other.knights;
+        bishops = other.bishops;
+        rooks = other.rooks;
+        queens = other.queens;
+        kings = other.kings;
+        state = other.state;
+        zobristHash = other.zobristHash;
+    }
+
+    void set(
+            final long white,
+            final long black,
+            final long pawns,
+            final long knights,
+            final long bishops,
+            final long rooks,
+            final long queens,
+            final long kings,
+            final int color,
+            final boolean whiteKingSideCastle,
+            final boolean whiteQueenSideCastle,
+            final boolean blackKingSideCastle,
+            final boolean blackQueenSideCastle,
+            final int enPassantSquareIndex,
+            final int halfmoveClock,
+            final int fullmoveClock,
+            final long zobristHash
+    ) {
+        this.white = white;
+        this.black = black;
+
+        this.pawns = pawns;
+        this.knights = knights;
+        this.bishops = bishops;
+        this.rooks = rooks;
+        this.queens = queens;
+        this.kings = kings;
+
+        this.state = state(
+                color,
+                whiteKingSideCastle,
+                whiteQueenSideCastle,
+                blackKingSideCastle,
+                blackQueenSideCastle,
+                enPassantSquareIndex,
+                halfmoveClock,
+                fullmoveClock
+        );
+
+        this.zobristHash = zobristHash;
+    }
+
+    /**
+     * @return the packed state word, also used by {@link PositionCodec}
+     */
+    static long state(
+            final int color,
+            final boolean whiteKingSideCastle,
+            final boolean whiteQueenSideCastle,
+            final boolean blackKingSideCastle,
+            final boolean blackQueenSideCastle,
+            final int enPassantSquareIndex,
+            final int halfmoveClock,
+            final int fullmoveClock
+    ) {
+        long state = color;
+
+        if (whiteKingSideCastle) {
+            state |= WHITE_KING_SIDE_CASTLE_MASK;
+        }
+
+        if (whiteQueenSideCastle) {
+            state |= WHITE_QUEEN_SIDE_CASTLE_MASK;
+        }
+
+        if (blackKingSideCastle) {
+            state |= BLACK_KING_SIDE_CASTLE_MASK;
+        }
+
+        if (blackQueenSideCastle) {
+            state |= BLACK_QUEEN_SIDE_CASTLE_MASK;
+        }
+
+        return state
+                | (long) enPassantSquareIndex << EN_PASSANT_SQUARE_INDEX_SHIFT
+                | (long) halfmoveClock << HALFMOVE_SHIFT
+                | (long) fullmoveClock << FULLMOVE_SHIFT;
+    }
+
+    long pieces(final int piece) {
+        switch (piece) {
+            case PAWN:
+                return pawns;
+            case KNIGHT:
+                return knights;
+            case BISHOP:
+                return bishops;
+            case ROOK:
+                return rooks;
+            case QUEEN:
+                return queens;
+            case KING:
+                return kings;
+            default:
+                throw new IllegalArgumentException("Unknown piece " + piece);
+        }
+    }
+
+    private void clear(final int piece, final long square) {
+        switch (piece) {
+            case PAWN:
+                pawns &= ~square;
+                break;
+            case KNIGHT:
+                knights &= ~square;
+                break;
+            case BISHOP:
+                bishops &= ~square;
+                break;
+            case ROOK:
+                rooks &= ~square;
+                break;
+            case QUEEN:
+                queens &= ~square;
+                break;
+            case KING:
+                kings &= ~square;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown piece " + piece);
+        }
+    }
+
+    private void add(final int piece, final long square) {
+        switch (piece) {
+            case PAWN:
+                pawns |= square;
+                break;
+            case KNIGHT:
+                knights |= square;
+                break;
+            case BISHOP:
+                bishops |= square;
+                break;
+            case ROOK:
+                rooks |= square;
+                break;
+            case QUEEN:
+                queens |= square;
+                break;
+            case KING:
+                kings |= square;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown piece " + piece);
+        }
+    }
+
+    /**
+     * @return the color to move, {@link MoveConstants#WHITE} or {@link MoveConstants#BLACK}
+     */
+    int color() {
+        return (int) (state & BLACKS_TURN_MASK);
+    }
+
+    boolean whiteKingSideCastle() {
+        return (state & WHITE_KING_SIDE_CASTLE_MASK) != 0L;
+    }
+
+    boolean whiteQueenSideCastle() {
+        return (state & WHITE_QUEEN_SIDE_CASTLE_MASK) != 0L;
+    }
+
+    boolean blackKingSideCastle() {
+        return (state & BLACK_KING_SIDE_CASTLE_MASK) != 0L;
+    }
+
+    boolean blackQueenSideCastle() {
+        return (state & BLACK_QUEEN_SIDE_CASTLE_MASK) != 0L;
+    }
+
+    /**
+     * @return the en passant square index, 0 if there is no en passant square
+     */
+    int enPassantSquareIndex() {
+        return (int) ((state & EN_PASSANT_SQUARE_INDEX_MASK) >> EN_PASSANT_SQUARE_INDEX_SHIFT);
+    }
+
+    int halfmoveClock() {
+        return (int) ((state & HALFMOVE_MASK) >>> HALFMOVE_SHIFT);
+    }
+
+    int fullmoveClock() {
+        return (int) ((state & FULLMOVE_MASK) >>> FULLMOVE_SHIFT);
+    }
+
+    public long zobristHash() {
+        return zobristHash;
+    }
+}
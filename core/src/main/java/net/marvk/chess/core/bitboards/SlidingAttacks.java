@@ -0,0 +1,56 @@
+package net.marvk.chess.core.bitboards;
+
+/**
+ * Attacks of the sliding pieces for an occupancy. {@link Bitboard} uses the backend selected by the system property
+ * {@value #BACKEND_PROPERTY} when it is loaded:
+ * <ul>
+ *     <li>{@code magic}, the default: {@link MagicBitboard} lookups, fastest, but the tables take about 840 KiB</li>
+ *     <li>{@code hyperbola}: hyperbola quintessence for files and diagonals and a first rank lookup for ranks, with
+ *     about 2 KiB of tables, leaving the caches to the transposition tables when many engines share a machine</li>
+ * </ul>
+ * Only the selected backend initialises its tables.
+ */
+public interface SlidingAttacks {
+    String BACKEND_PROPERTY = "kairuku.slidingAttacks";
+
+    long rookAttacks(long occupancy, int squareIndex);
+
+    long bishopAttacks(long occupancy, int squareIndex);
+
+    /**
+     * @return the union of the rook and bishop attacks from {@code squareIndex}
+     */
+    default long queenAttacks(final long occupancy, final int squareIndex) {
+        return rookAttacks(occupancy, squareIndex) | bishopAttacks(occupancy, squareIndex);
+    }
+
+    static SlidingAttacks magic() {
+        return MagicSlidingAttacks.INSTANCE;
+    }
+
+    static SlidingAttacks hyperbola() {
+        return HyperbolaSlidingAttacks.INSTANCE;
+    }
+
+    /**
+     * @param name {@code magic} or {@code hyperbola}
+     * @throws IllegalArgumentException if there is no backend with this name
+     */
+    static SlidingAttacks forName(final String name) {
+        switch (name) {
+            case "magic":
+                return magic();
+            case "hyperbola":
+                return hyperbola();
+            default:
+                throw new IllegalArgumentException("Unknown sliding attacks backend " + name + ", expected magic or hyperbola");
+        }
+    }
+
+    /**
+     * @return the backend named by the system property {@value #BACKEND_PROPERTY}, {@link #magic()} if it is not set
+     */
+    static SlidingAttacks fromSystemProperty() {
+        return forName(System.getProperty(BACKEND_PROPERTY, "magic"));
+    }
+}
@@ -0,0 +1,134 @@
+package net.marvk.chess.core.bitboards;
+
+import static net.marvk.chess.core.bitboards.MoveConstants.NO_MOVE;
+
+/**
+ * Lazily yields the legal moves of a position in stages: the hash move first, then captures and promotions, then quiet
+ * moves. A stage is only generated once the previous one is exhausted, so a search that cuts off early never pays for
+ * generating the remaining stages. Within a stage, moves are picked in descending
+ * {@link MoveList#getMvvLvaSquarePieceDifferenceValue(int) move order value} by selection.
+ * <p>
+ * Instances are meant to be reused, typically one per ply.
+ */
+public final class StagedMoveGenerator {
+    private static final int STAGE_HASH_MOVE = 0;
+    private static final int STAGE_GENERATE_TACTICAL = 1;
+    private static final int STAGE_TACTICAL = 2;
+    private static final int STAGE_GENERATE_QUIET = 3;
+    private static final int STAGE_QUIET = 4;
+    private static final int STAGE_DONE = 5;
+
+    private final MoveList moves = new MoveList();
+
+    private Bitboard board;
+    private int hashMove;
+    private Bitboard.BBMove scoredHashMove;
+
+    private int stage;
+    private int index;
+    private int current;
+
+    /**
+     * Prepares the generation of the moves of {@code board}.
+     *
+     * @param board    the position, must not be modified while moves are being picked, except for make/unmake pairs
+     * @param hashMove a move to be tried first if it is legal in {@code board}, possibly from a different position, or
+     *                 {@link MoveConstants#NO_MOVE}
+     */
+    public void reset(final Bitboard board, final int hashMove) {
+        this.board = board;
+        this.hashMove = hashMove == NO_MOVE ? NO_MOVE : board.resolveLegalMove(hashMove);
+        this.scoredHashMove = null;
+        this.stage = STAGE_HASH_MOVE;
+        this.index = 0;
+        this.current = NO_MOVE;
+    }
+
+    /**
+     * @return the next legal move, or {@link MoveConstants#NO_MOVE} if all moves have been picked
+     */
+    public int next() {
+        while (true) {
+            switch (stage) {
+                case STAGE_HASH_MOVE:
+                    stage = STAGE_GENERATE_TACTICAL;
+
+                    if (hashMove != NO_MOVE) {
+                        //scored before the caller makes it, like the generated moves
+                        scoredHashMove = board.scoredMove(hashMove);
+                        current = hashMove;
+                        return current;
+                    }
+
+                    break;
+                case STAGE_GENERATE_TACTICAL:
+                    board.generateLegalTacticalMoves(moves);
+                    index = 0;
+                    stage = STAGE_TACTICAL;
+                    break;
+                case STAGE_TACTICAL:
+                    if (pickNext()) {
+                        return current;
+                    }
+
+                    stage = STAGE_GENERATE_QUIET;
+                    break;
+                case STAGE_GENERATE_QUIET:
+                    board.generateLegalQuietMoves(moves);
+                    index = 0;
+                    stage = STAGE_QUIET;
+                    break;
+                case STAGE_QUIET:
+                    if (pickNext()) {
+                        return current;
+                    }
+
+                    stage = STAGE_DONE;
+                    break;
+                default:
+                    current = NO_MOVE;
+                    return NO_MOVE;
+            }
+        }
+    }
+
+    /**
+     * @return the move last returned by {@link #next()} as a {@link Bitboard.BBMove}, scored like the generated moves,
+     * may be called while the move is made
+     * @throws IllegalStateException if {@link #next()} has not returned a move since the last reset
+     */
+    public Bitboard.BBMove currentBBMove() {
+        if (current == NO_MOVE) {
+            throw new IllegalStateException("No current move");
+        }
+
+        if (current == hashMove) {
+            return scoredHashMove;
+        }
+
+        return moves.getBBMove(index - 1);
+    }
+
+    private boolean pickNext() {
+        while (index < moves.size()) {
+            int best = index;
+
+            for (int i = index + 1; i < moves.size(); i++) {
+                if (moves.getMvvLvaSquarePieceDifferenceValue(i) > moves.getMvvLvaSquarePieceDifferenceValue(best)) {
+                    best = i;
+                }
+            }
+
+            moves.swap(index, best);
+
+            current = moves.get(index);
+            index++;
+
+            if (current != hashMove) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,80 @@
+package net.marvk.chess.core;
+
+import net.marvk.chess.core.bitboards.Bitboard;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+class FenParserTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    void strict() {
+        final FenParser parser = new FenParser(true).parse("rnbqkbnr/pp1ppppp/8/2p5/4P3/8/PPPP1PPP/RNBQKBNR w KQkq c6 0 2");
+
+        Assertions.assertTrue(parser.isWhiteToMove());
+        Assertions.assertEquals(0b1111, parser.getCastlingAvailability());
+        Assertions.assertEquals(Square.C6.getBitboardIndex(), parser.getEnPassantSquareIndex());
+        Assertions.assertEquals(0, parser.getHalfmoveClock());
+        Assertions.assertEquals(2, parser.getFullmoveClock());
+        Assertions.assertEquals('P', parser.getPiece(Square.E4.getBitboardIndex()));
+        Assertions.assertEquals('k', parser.getPiece(Square.E8.getBitboardIndex()));
+        Assertions.assertEquals(0, parser.getPiece(Square.E2.getBitboardIndex()));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parser.parse(" " + KIWIPETE));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parser.parse(KIWIPETE.replace(" w ", "  w ")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parser.parse(KIWIPETE.replace("KQkq", "kqKQ")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parser.parse(KIWIPETE.replace("KQkq", "")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parser.parse(KIWIPETE.replace("/3PN3/", "/12PN3/")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parser.parse(KIWIPETE.replace(" 0 1", " 0")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parser.parse(KIWIPETE + " bm e5f7;"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parser.parse(KIWIPETE.replace("/", "/8/")));
+    }
+
+    @Test
+    void lenient() {
+        final FenParser parser = new FenParser(false).parse("  r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R \tb  qkQK -  bm e5f7;");
+
+        Assertions.assertFalse(parser.isWhiteToMove());
+        Assertions.assertEquals(0b1111, parser.getCastlingAvailability());
+        Assertions.assertEquals(-1, parser.getEnPassantSquareIndex());
+        Assertions.assertEquals(0, parser.getHalfmoveClock());
+        Assertions.assertEquals(1, parser.getFullmoveClock());
+
+        parser.parse("4k3/8/8/8/8/8/8/31K3");
+
+        Assertions.assertTrue(parser.isWhiteToMove());
+        Assertions.assertEquals(0, parser.getCastlingAvailability());
+        Assertions.assertEquals('K', parser.getPiece(Square.E1.getBitboardIndex()));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parser.parse("4k3/8/8/8/8/8/8/4K4 w - -"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parser.parse("4k3/8/8/8/8/8/8 w - -"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parser.parse("4k3/8/8/8/8/8/8/4K3 x - -"));
+    }
+
+    @Test
+    void byteSlice() {
+        final byte[] bytes = ("junk\n" + KIWIPETE + "\njunk").getBytes(StandardCharsets.US_ASCII);
+        final int start = 5;
+        final int end = start + KIWIPETE.length();
+
+        final Bitboard board = new Bitboard(Fen.EMPTY_BOARD);
+        board.load(new FenParser(true).parse(bytes, start, end));
+
+        Assertions.assertEquals(KIWIPETE, board.fen());
+        Assertions.assertEquals(new Bitboard(Fen.parse(KIWIPETE)).zobristHash(), board.zobristHash());
+    }
+
+    @Test
+    void fieldBounds() {
+        final FenParser parser = new FenParser(true).parse(KIWIPETE);
+
+        Assertions.assertEquals("KQkq", KIWIPETE.substring(parser.getFieldStart(FenParser.CASTLING_AVAILABILITY), parser.getFieldEnd(FenParser.CASTLING_AVAILABILITY)));
+        Assertions.assertEquals("1", KIWIPETE.substring(parser.getFieldStart(FenParser.FULLMOVE_CLOCK), parser.getFieldEnd(FenParser.FULLMOVE_CLOCK)));
+
+        parser.parse("8/8/8/8/8/8/8/8 w - -");
+
+        Assertions.assertEquals(-1, parser.getFieldStart(FenParser.HALFMOVE_CLOCK));
+    }
+}
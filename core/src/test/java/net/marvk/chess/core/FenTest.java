@@ -1,6 +1,7 @@
 package net.marvk.chess.core;
 
 import net.marvk.chess.core.Fen;
+import net.marvk.chess.core.bitboards.Bitboard;
 import org.junit.jupiter.api.Assertions;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,4 +35,16 @@ class FenTest {
         assertThrows(IllegalArgumentException.class, () -> Fen.parse("rnbqkbnr/pp1ppppp/8/2p5/4P3/5N2/PPPP1PPP/RNBQKB1R b - 1 2"));
         assertThrows(IllegalArgumentException.class, () -> Fen.parse("rnbqkbnr/pp1ppppp/44/2p5/4P3/5N2/PPPP1PPP/RNBQKB1R b - - 1 2"));
     }
-}
\ No newline at end of file
+
+    @org.junit.jupiter.api.Test
+    void load() {
+        final Fen fen = Fen.parse("rnbqkbnr/pp1ppppp/8/2p5/4P3/8/PPPP1PPP/RNBQKBNR w KQkq c6 0 2");
+        final Bitboard board = new Bitboard(Fen.STARTING_POSITION);
+
+        fen.load(board);
+
+        Assertions.assertEquals(fen.getInput(), board.fen());
+        Assertions.assertEquals(new Bitboard(fen), board);
+        Assertions.assertEquals(Fen.STARTING_POSITION.getInput(), new Bitboard(Fen.STARTING_POSITION).fen());
+    }
+}
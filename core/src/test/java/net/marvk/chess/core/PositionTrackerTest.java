@@ -0,0 +1,60 @@
+package net.marvk.chess.core;
+
+import net.marvk.chess.core.bitboards.Bitboard;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PositionTrackerTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    void extendsPreviousMoves() {
+        final PositionTracker tracker = new PositionTracker();
+
+        final Bitboard first = tracker.update(UciMove.parseLine("e2e4 e7e5"));
+        final Bitboard second = tracker.update(UciMove.parseLine("e2e4 e7e5 g1f3 b8c6 f1b5"));
+
+        Assertions.assertSame(first, second);
+        assertSameBoard(UciMove.getBoard(UciMove.parseLine("e2e4 e7e5 g1f3 b8c6 f1b5")), second);
+    }
+
+    @Test
+    void replaysDivergingMoves() {
+        final PositionTracker tracker = new PositionTracker();
+
+        final Bitboard first = tracker.update(UciMove.parseLine("e2e4 e7e5 g1f3"));
+        final Bitboard second = tracker.update(UciMove.parseLine("e2e4 c7c5 g1f3"));
+
+        Assertions.assertNotSame(first, second);
+        assertSameBoard(UciMove.getBoard(UciMove.parseLine("e2e4 c7c5 g1f3")), second);
+
+        final Bitboard shorter = tracker.update(UciMove.parseLine("e2e4"));
+
+        assertSameBoard(UciMove.getBoard(UciMove.parseLine("e2e4")), shorter);
+    }
+
+    @Test
+    void replaysChangedStartPosition() {
+        final PositionTracker tracker = new PositionTracker();
+
+        tracker.update(UciMove.parseLine("e2e4"));
+        final Bitboard board = tracker.update(KIWIPETE, UciMove.parseLine("e1g1 e8c8 a2a3"));
+
+        assertSameBoard(UciMove.getBoard(UciMove.parseLine("e1g1 e8c8 a2a3"), Fen.parse(KIWIPETE)), board);
+    }
+
+    @Test
+    void rejectsIllegalMove() {
+        final PositionTracker tracker = new PositionTracker();
+
+        tracker.update(UciMove.parseLine("e2e4 e7e5"));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> tracker.update(UciMove.parseLine("e2e4 e7e5 e1e3")));
+        assertSameBoard(UciMove.getBoard(UciMove.parseLine("e2e4 e7e5 g1f3")), tracker.update(UciMove.parseLine("e2e4 e7e5 g1f3")));
+    }
+
+    private static void assertSameBoard(final Bitboard expected, final Bitboard actual) {
+        Assertions.assertEquals(expected.fen(), actual.fen());
+        Assertions.assertEquals(expected.zobristHash(), actual.zobristHash());
+    }
+}
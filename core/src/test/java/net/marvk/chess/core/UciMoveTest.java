@@ -0,0 +1,28 @@
+package net.marvk.chess.core;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class UciMoveTest {
+    @Test
+    void parse() {
+        Assertions.assertEquals(UciMove.of(Square.E2, Square.E4, null), UciMove.parse("e2e4"));
+        Assertions.assertEquals(UciMove.of(Square.B7, Square.A8, Piece.KNIGHT), UciMove.parse("b7a8n"));
+        Assertions.assertEquals(UciMove.of(Square.H2, Square.H1, Piece.QUEEN), UciMove.parse("h2h1Q"));
+
+        Assertions.assertEquals("b7a8n", UciMove.parse("b7a8n").toString());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> UciMove.parse("e2e"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> UciMove.parse("e2e9"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> UciMove.parse("i2e4"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> UciMove.parse("e7e8k"));
+    }
+
+    @Test
+    void interned() {
+        Assertions.assertSame(UciMove.parse("e7e8q"), UciMove.of(Square.E7, Square.E8, Piece.QUEEN));
+        Assertions.assertSame(UciMove.parse("g1f3"), UciMove.parseLine("e2e4 e7e5 g1f3")[2]);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> UciMove.of(Square.E7, Square.E8, Piece.KING));
+    }
+}
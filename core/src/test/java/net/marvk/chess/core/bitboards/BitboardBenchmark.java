@@ -0,0 +1,203 @@
+package net.marvk.chess.core.bitboards;
+
+import net.marvk.chess.core.Fen;
+import net.marvk.chess.core.FenParser;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Simple throughput benchmarks of the board representation. Not run by default, every benchmark prints the best of
+ * several timed runs after a warmup.
+ */
+public class BitboardBenchmark {
+    private static final int WARMUP_RUNS = 3;
+    private static final int RUNS = 5;
+
+    static final List<String> FEN_STRINGS = List.of(
+            Fen.STARTING_POSITION.getInput(),
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"
+    );
+
+    @Test
+    public void legalPerft() {
+        benchmark("legal perft, depth 4", board -> new Perft(board).perft(4));
+    }
+
+    @Test
+    public void copyMakePerft() {
+        benchmark("copy-make perft, depth 4", board -> copyMakePerft(board.snapshot(), 4, new Bitboard(board), MoveList.forPlies(5), PositionSnapshot.forPlies(5)));
+    }
+
+    @Test
+    public void makeUnmake() {
+        benchmark("make/unmake, depth 4", board -> MoveTree.forEachNode(board, 4, node -> {}));
+    }
+
+    @Test
+    public void copyMake() {
+        benchmark("copy-make, depth 4", board -> copyMake(board.snapshot(), 4, new Bitboard(board), MoveList.forPlies(5), PositionSnapshot.forPlies(5)));
+    }
+
+    @Test
+    public void fenRoundTrip() {
+        final FenParser parser = new FenParser(true);
+        final StringBuilder fen = new StringBuilder(90);
+
+        benchmark("FEN write/parse/load, 100k", board -> fenRoundTrip(board, parser, fen, 100_000));
+    }
+
+    @Test
+    public void binaryRoundTrip() {
+        final ByteBuffer buffer = ByteBuffer.allocate(PositionCodec.BYTES);
+
+        benchmark("binary encode/decode, 100k", board -> binaryRoundTrip(board, buffer, 100_000));
+    }
+
+    @Test
+    public void binaryBulkDecode() {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(100_000 * PositionCodec.BYTES);
+        final Bitboard decoded = new Bitboard(Fen.STARTING_POSITION);
+
+        benchmark("binary bulk encode/decode, 100k", board -> binaryBulk(board, buffer, decoded));
+    }
+
+    /**
+     * Writes the board into the buffer and decodes it back {@code times} times.
+     */
+    private static long binaryRoundTrip(final Bitboard board, final ByteBuffer buffer, final int times) {
+        for (int i = 0; i < times; i++) {
+            buffer.clear();
+            PositionCodec.encode(board, buffer);
+            buffer.flip();
+            PositionCodec.decode(buffer, board);
+        }
+
+        return times;
+    }
+
+    /**
+     * Fills the buffer with copies of the board, then decodes all of them like a dataset.
+     */
+    private static long binaryBulk(final Bitboard board, final ByteBuffer buffer, final Bitboard decoded) {
+        buffer.clear();
+
+        while (buffer.hasRemaining()) {
+            PositionCodec.encode(board, buffer);
+        }
+
+        buffer.flip();
+
+        return PositionCodec.decodeAll(buffer, decoded, b -> {});
+    }
+
+    /**
+     * Writes the FEN of the board and loads it back {@code times} times, reusing the parser and the builder.
+     */
+    private static long fenRoundTrip(final Bitboard board, final FenParser parser, final StringBuilder fen, final int times) {
+        for (int i = 0; i < times; i++) {
+            fen.setLength(0);
+            board.appendFen(fen);
+            board.load(parser.parse(fen));
+        }
+
+        return times;
+    }
+
+    /**
+     * Same traversal as {@link Perft#perft(Bitboard, int, MoveList[], PerftCache)} with bulk counting on the last ply,
+     * but every child is created by copy-make and loaded into the board before its moves are generated.
+     */
+    private static long copyMakePerft(
+            final PositionSnapshot position,
+            final int depth,
+            final Bitboard board,
+            final MoveList[] moveLists,
+            final PositionSnapshot[] positions
+    ) {
+        board.load(position);
+
+        final MoveList moves = moveLists[depth];
+        board.generateLegalMoves(moves);
+
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        final PositionSnapshot child = positions[depth - 1];
+
+        long nodes = 0L;
+
+        for (int i = 0; i < moves.size(); i++) {
+            position.copyMake(moves.get(i), child);
+            nodes += copyMakePerft(child, depth - 1, board, moveLists, positions);
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Same traversal as {@link MoveTree#forEachNode(Bitboard, int, java.util.function.Consumer)}, but every child is
+     * created by copy-make and loaded into the board before its moves are generated.
+     */
+    private static long copyMake(
+            final PositionSnapshot position,
+            final int depth,
+            final Bitboard board,
+            final MoveList[] moveLists,
+            final PositionSnapshot[] positions
+    ) {
+        if (depth == 0) {
+            return 1L;
+        }
+
+        board.load(position);
+
+        final MoveList moves = moveLists[depth];
+        board.generateLegalMoves(moves);
+
+        final PositionSnapshot child = positions[depth - 1];
+
+        long nodes = 0L;
+
+        for (int i = 0; i < moves.size(); i++) {
+            position.copyMake(moves.get(i), child);
+            nodes += copyMake(child, depth - 1, board, moveLists, positions);
+        }
+
+        return nodes;
+    }
+
+    static void benchmark(final String name, final ToLongFunction<Bitboard> benchmark) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run(benchmark);
+        }
+
+        long bestNanos = Long.MAX_VALUE;
+        long nodes = 0L;
+
+        for (int i = 0; i < RUNS; i++) {
+            final long start = System.nanoTime();
+            nodes = run(benchmark);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        System.out.printf("%-40s %,14d nodes %,10d ms %,14d nodes/s%n", name, nodes, bestNanos / 1_000_000L, nodes * 1_000_000_000L / bestNanos);
+    }
+
+    private static long run(final ToLongFunction<Bitboard> benchmark) {
+        long nodes = 0L;
+
+        for (final String fen : FEN_STRINGS) {
+            nodes += benchmark.applyAsLong(new Bitboard(Fen.parse(fen)));
+        }
+
+        return nodes;
+    }
+}
@@ -17,13 +17,18 @@ import java.util.stream.Collectors;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class BitboardMakeUnmakePerft {
+    /**
+     * Steps with more nodes are only counted by {@link #hashedPerftTest(NominalPerft)}
+     */
+    private static final long MAX_UNHASHED_NODES = 20_000_000L;
+
     private static final NominalPerft INITIAL_POSITION = new NominalPerft("initial position", Fen.STARTING_POSITION.getInput(),
             new NominalPerftStep(1, 20L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L)
             , new NominalPerftStep(2, 400L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L)
             , new NominalPerftStep(3, 8_902L, 34L, 0L, 0L, 0L, 12L, 0L, 0L, 0L)
             , new NominalPerftStep(4, 197_281L, 1_576L, 0L, 0L, 0L, 469L, 0L, 0L, 8L)
             , new NominalPerftStep(5, 4_865_609L, 82_719L, 258L, 0L, 0L, 27_351L, 6L, 0L, 347L)
-//            , new NominalPerftStep(6, 119_060_324L, 2_812_008L, 5_248L, 0L, 0L, 809_099L, 329L, 46L, 10_828L)
+            , new NominalPerftStep(6, 119_060_324L, 2_812_008L, 5_248L, 0L, 0L, 809_099L, 329L, 46L, 10_828L)
     );
 
     private static final NominalPerft POSITION_2 = new NominalPerft("position 2", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
@@ -41,7 +46,7 @@ public class BitboardMakeUnmakePerft {
             , new NominalPerftStep(4, 43_238L)
             , new NominalPerftStep(5, 674_624L)
             , new NominalPerftStep(6, 11_030_083L)
-//            , new NominalPerftStep(7, 178_633_661L)
+            , new NominalPerftStep(7, 178_633_661L)
     );
 
     private static final NominalPerft POSITION_4 = new NominalPerft("position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
@@ -79,6 +84,7 @@ public class BitboardMakeUnmakePerft {
     );
 
     private static Path enginePath;
+    private static PerftCache perftCache;
 
     private static List<NominalPerft> perfts() {
         final List<NominalPerft> perfts = new ArrayList<>();
@@ -96,26 +102,66 @@ public class BitboardMakeUnmakePerft {
 
     @BeforeAll
     public static void setup() {
-        enginePath = Paths.get("B:/Marvin/Desktop/Programme/stockfish-10-win/Windows/stockfish_10_x64.exe");
+        final String engine = System.getProperty("perft.engine");
+
+        enginePath = engine == null ? null : Paths.get(engine);
+        perftCache = new PerftCache(22);
     }
 
     @ParameterizedTest
     @MethodSource("perfts")
     public void perftTest(final NominalPerft nominalPerft) {
-        for (int i = 1; i <= nominalPerft.depth; i++) {
+        for (int i = 1; i <= nominalPerft.unhashedDepth; i++) {
             final NominalPerftStep step = nominalPerft.getForDepth(i);
-            final long perft = perft(new Bitboard(nominalPerft.fen), step.depth);
+            final long perft = perft(new Bitboard(nominalPerft.fen), step.depth, MoveList.forPlies(step.depth + 1));
 
             Assertions.assertEquals(step.nodes, perft, "Depth " + i + "\n" + nominalPerft.fen + "\n");
         }
     }
 
-    private static long perft(final Bitboard board, final int depth) {
+    @ParameterizedTest
+    @MethodSource("perfts")
+    public void legalPerftTest(final NominalPerft nominalPerft) {
+        for (int i = 1; i <= nominalPerft.unhashedDepth; i++) {
+            final NominalPerftStep step = nominalPerft.getForDepth(i);
+            final long perft = new Perft(new Bitboard(nominalPerft.fen)).perft(step.depth);
+
+            Assertions.assertEquals(step.nodes, perft, "Depth " + i + "\n" + nominalPerft.fen + "\n");
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("perfts")
+    public void parallelPerftTest(final NominalPerft nominalPerft) {
+        final NominalPerftStep step = nominalPerft.getForDepth(nominalPerft.unhashedDepth);
+        final Perft perft = new Perft(new Bitboard(nominalPerft.fen));
+
+        Assertions.assertEquals(step.nodes, perft.parallelPerft(step.depth), nominalPerft.fen::toString);
+
+        final long divided = perft.parallelDivide(step.depth).values().stream().mapToLong(Long::longValue).sum();
+
+        Assertions.assertEquals(step.nodes, divided, nominalPerft.fen::toString);
+    }
+
+    @ParameterizedTest
+    @MethodSource("perfts")
+    public void hashedPerftTest(final NominalPerft nominalPerft) {
+        final Perft perft = new Perft(new Bitboard(nominalPerft.fen), perftCache);
+
+        for (int i = 1; i <= nominalPerft.depth; i++) {
+            final NominalPerftStep step = nominalPerft.getForDepth(i);
+
+            Assertions.assertEquals(step.nodes, perft.parallelPerft(step.depth), "Depth " + i + "\n" + nominalPerft.fen + "\n");
+        }
+    }
+
+    private static long perft(final Bitboard board, final int depth, final MoveList[] moveLists) {
         if (depth == 0) {
             return 1L;
         }
 
-        final List<Bitboard.BBMove> moves = board.generatePseudoLegalMoves();
+        final MoveList moves = moveLists[depth];
+        board.generatePseudoLegalMoves(moves);
 
         long nodes = 0L;
 
@@ -126,14 +172,16 @@ public class BitboardMakeUnmakePerft {
 //        final String previous = board.bitboardStrings();
 
 //        final Set<String> actuals = new HashSet<>();
-        for (final Bitboard.BBMove move : moves) {
+        for (int i = 0; i < moves.size(); i++) {
+            final int move = moves.get(i);
+
             board.make(move);
 
             final boolean valid = !board.isInvalidPosition();
 
             if (valid) {
-//                actuals.add(move.asUciMove().toString());
-                nodes += perft(board, depth - 1);
+//                actuals.add(moves.asUciMove(i).toString());
+                nodes += perft(board, depth - 1, moveLists);
             }
 
             board.unmake(move);
@@ -146,7 +194,7 @@ public class BitboardMakeUnmakePerft {
 //                error.add(fen);
 //                error.add("depth: " + depth);
 ////                error.add("Previous\t" + previous);
-//                error.add("Move \t\t" + move.asUciMove());
+//                error.add("Move \t\t" + moves.asUciMove(i));
 //                error.add("expected:");
 //                error.add(expected);
 //                error.add("actual:");
@@ -193,6 +241,7 @@ public class BitboardMakeUnmakePerft {
         private final Fen fen;
         private final Map<Integer, NominalPerftStep> nominal;
         private final int depth;
+        private final int unhashedDepth;
 
         NominalPerft(final String name, final String fen, final NominalPerftStep... nominalPerftSteps) {
             this.name = name;
@@ -206,6 +255,12 @@ public class BitboardMakeUnmakePerft {
                                .mapToInt(NominalPerftStep::getDepth)
                                .max()
                                .orElseThrow(IllegalArgumentException::new);
+
+            this.unhashedDepth = Arrays.stream(nominalPerftSteps)
+                                       .filter(step -> step.getNodes() <= MAX_UNHASHED_NODES)
+                                       .mapToInt(NominalPerftStep::getDepth)
+                                       .max()
+                                       .orElseThrow(IllegalArgumentException::new);
         }
 
         NominalPerftStep getForDepth(final int depth) {
@@ -1,10 +1,19 @@
 package net.marvk.chess.core.bitboards;
 
+import net.marvk.chess.core.Color;
 import net.marvk.chess.core.Fen;
+import net.marvk.chess.core.Piece;
+import net.marvk.chess.core.Square;
+import net.marvk.chess.core.UciMove;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Stream;
 
 class BitboardTest {
@@ -14,6 +23,257 @@ class BitboardTest {
         Assertions.assertEquals(fen, new Bitboard(Fen.parse(fen)).fen());
     }
 
+    @ParameterizedTest
+    @MethodSource("fenStrings")
+    void mailboxFollowsMakeUnmake(final String fen) {
+        final Bitboard board = new Bitboard(Fen.parse(fen));
+
+        MoveTree.forEachNode(board, 3, node -> Assertions.assertEquals(new Bitboard(Fen.parse(node.fen())), node, node::fen));
+
+        Assertions.assertEquals(fen, board.fen());
+    }
+
+    @ParameterizedTest
+    @MethodSource("fenStrings")
+    void attackMapsFollowMakeUnmake(final String fen) {
+        MoveTree.forEachNode(new Bitboard(Fen.parse(fen)), 2, BitboardTest::assertAttackMapsConsistent);
+    }
+
+    private static void assertAttackMapsConsistent(final Bitboard board) {
+        final Bitboard expected = new Bitboard(Fen.parse(board.fen()));
+
+        for (final Color color : Color.values()) {
+            final long attacked = board.attackedSquares(color);
+
+            Assertions.assertEquals(expected.attackedSquares(color), attacked, board::fen);
+
+            for (final Square square : Square.values()) {
+                final boolean squareAttacked = (attacked & square.getOccupiedBitMask()) != 0L;
+
+                Assertions.assertEquals(squareAttacked, board.attackersTo(square, color) != 0L, board::fen);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("fenStrings")
+    void copyMakeFollowsMake(final String fen) {
+        final Bitboard board = new Bitboard(Fen.parse(fen));
+
+        Assertions.assertEquals(board, new Bitboard(board.snapshot()));
+
+        MoveTree.forEachNode(board, 2, BitboardTest::assertCopyMakeConsistent);
+    }
+
+    private static void assertCopyMakeConsistent(final Bitboard board) {
+        final PositionSnapshot position = board.snapshot();
+        final PositionSnapshot child = new PositionSnapshot();
+
+        Assertions.assertEquals(board.fen(), new Bitboard(position).fen());
+
+        final MoveList moves = new MoveList();
+        board.generateLegalMoves(moves);
+
+        for (int i = 0; i < moves.size(); i++) {
+            position.copyMake(moves.get(i), child);
+
+            board.make(moves.get(i));
+            Assertions.assertEquals(board.snapshot(), child, board::fen);
+            Assertions.assertEquals(board.fen(), new Bitboard(child).fen());
+            board.unmake(moves.get(i));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("fenStrings")
+    void copyKeepsUndoStack(final String fen) {
+        final Bitboard board = new Bitboard(Fen.parse(fen));
+
+        final MoveList moves = new MoveList();
+        board.generateLegalMoves(moves);
+
+        final int move = moves.get(moves.size() - 1);
+
+        board.make(move);
+
+        final Bitboard copy = new Bitboard(board);
+        copy.unmake(move);
+
+        Assertions.assertEquals(fen, copy.fen());
+        Assertions.assertEquals(copy.computeZobristHash(), copy.zobristHash());
+        Assertions.assertThrows(IllegalStateException.class, () -> copy.unmake(move));
+    }
+
+    @Test
+    void repetition() {
+        final Bitboard board = UciMove.getBoard(UciMove.parseLine("g1f3 g8f6 f3g1 f6g8"));
+
+        Assertions.assertTrue(board.isRepetition());
+        Assertions.assertFalse(board.isThreefold());
+
+        final Bitboard threefold = UciMove.getBoard(UciMove.parseLine("g1f3 g8f6 f3g1 f6g8 g1f3 g8f6 f3g1 f6g8"));
+
+        Assertions.assertTrue(threefold.isThreefold());
+
+        final Bitboard irreversible = UciMove.getBoard(UciMove.parseLine("g1f3 g8f6 f3g1 f6g8 e2e3 e7e6 g1f3 g8f6 f3g1 f6g8"));
+
+        Assertions.assertTrue(irreversible.isRepetition());
+        Assertions.assertFalse(irreversible.isThreefold());
+
+        final Bitboard transposed = UciMove.getBoard(UciMove.parseLine("g1f3 g8f6 b1c3 b8c6 f3g1 f6g8"));
+
+        Assertions.assertFalse(transposed.isRepetition());
+    }
+
+    @Test
+    void see() {
+        Assertions.assertEquals(100, see("4k3/8/8/3p4/4P3/8/8/4K3 w - - 0 1", "e4d5"));
+        Assertions.assertEquals(0, see("4k3/8/2p5/3p4/4P3/8/8/4K3 w - - 0 1", "e4d5"));
+        Assertions.assertEquals(-800, see("4k3/8/2p5/3p4/8/8/3Q4/4K3 w - - 0 1", "d2d5"));
+        Assertions.assertEquals(100, see("4k3/3r4/8/3p4/8/8/3R4/3RK3 w - - 0 1", "d2d5"));
+        Assertions.assertEquals(-400, see("4k3/3r4/8/3p4/8/8/3R4/4K3 w - - 0 1", "d2d5"));
+        Assertions.assertEquals(100, see("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5d6"));
+        Assertions.assertEquals(220, see("2nk4/1P6/8/8/8/8/8/4K3 w - - 0 1", "b7c8q"));
+        Assertions.assertEquals(0, see("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1", "e1g1"));
+    }
+
+    private static int see(final String fen, final String uciMove) {
+        final Bitboard board = new Bitboard(Fen.parse(fen));
+
+        final MoveList moves = new MoveList();
+        board.generateLegalMoves(moves);
+
+        for (int i = 0; i < moves.size(); i++) {
+            if (Bitboard.BBMove.asUciMove(moves.get(i)).equals(UciMove.parse(uciMove))) {
+                return board.see(moves.get(i));
+            }
+        }
+
+        throw new AssertionError(uciMove + " is not legal in " + fen);
+    }
+
+    @ParameterizedTest
+    @MethodSource("fenStrings")
+    void seeGreaterOrEqualFollowsSee(final String fen) {
+        final Bitboard board = new Bitboard(Fen.parse(fen));
+
+        final MoveList moves = new MoveList();
+        board.generateLegalMoves(moves);
+
+        for (int i = 0; i < moves.size(); i++) {
+            final int move = moves.get(i);
+            final int see = board.see(move);
+
+            for (final int threshold : new int[]{-1000, -100, 0, 100, 1000, see - 1, see, see + 1}) {
+                Assertions.assertEquals(see >= threshold, board.seeGreaterOrEqual(move, threshold), () -> Bitboard.BBMove.asUciMove(move) + " at " + threshold + " in " + fen);
+            }
+        }
+
+        Assertions.assertEquals(fen, board.fen());
+    }
+
+    @ParameterizedTest
+    @MethodSource("fenStrings")
+    void givesCheckFollowsMake(final String fen) {
+        MoveTree.forEachNode(new Bitboard(Fen.parse(fen)), 2, BitboardTest::assertGivesCheckConsistent);
+    }
+
+    private static void assertGivesCheckConsistent(final Bitboard board) {
+        final MoveList moves = new MoveList();
+        board.generateLegalMoves(moves);
+
+        for (int i = 0; i < moves.size(); i++) {
+            final int move = moves.get(i);
+            final boolean givesCheck = board.givesCheck(move);
+
+            board.make(move);
+            Assertions.assertEquals(board.isInCheck(), givesCheck, () -> Bitboard.BBMove.asUciMove(move) + " after " + board.fen());
+            board.unmake(move);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("fenStrings")
+    void resolveFollowsLegalMoves(final String fen) {
+        MoveTree.forEachNode(new Bitboard(Fen.parse(fen)), 1, BitboardTest::assertResolveConsistent);
+    }
+
+    private static void assertResolveConsistent(final Bitboard board) {
+        final MoveList moves = new MoveList();
+        board.generateLegalMoves(moves);
+
+        final Map<UciMove, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < moves.size(); i++) {
+            expected.put(Bitboard.BBMove.asUciMove(moves.get(i)), moves.get(i));
+        }
+
+        for (final Square source : Square.values()) {
+            for (final Square target : Square.values()) {
+                for (final Piece promote : new Piece[]{null, Piece.KNIGHT, Piece.BISHOP, Piece.ROOK, Piece.QUEEN}) {
+                    final UciMove uciMove = UciMove.of(source, target, promote);
+
+                    Assertions.assertEquals((int) expected.getOrDefault(uciMove, MoveConstants.NO_MOVE), board.resolve(uciMove), () -> uciMove + " in " + board.fen());
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("checkFenStrings")
+    void evasions(final String fen) {
+        final Bitboard board = new Bitboard(Fen.parse(fen));
+
+        final Set<Integer> expected = new HashSet<>();
+
+        for (final Bitboard.BBMove move : board.generatePseudoLegalMoves()) {
+            board.make(move);
+
+            if (!board.isInvalidPosition()) {
+                expected.add(move.getBits());
+            }
+
+            board.unmake(move);
+        }
+
+        final Set<Integer> actual = new HashSet<>();
+
+        for (final Bitboard.BBMove move : board.generateLegalMoves()) {
+            actual.add(move.getBits());
+        }
+
+        Assertions.assertEquals(expected, actual);
+
+        final MoveList evasions = new MoveList();
+        board.generateEvasions(evasions);
+
+        Assertions.assertEquals(expected.size(), evasions.size());
+    }
+
+    @ParameterizedTest
+    @MethodSource("fenStrings")
+    void evasionsRequireCheck(final String fen) {
+        final Bitboard board = new Bitboard(Fen.parse(fen));
+
+        if (!board.isInCheck()) {
+            Assertions.assertThrows(IllegalStateException.class, () -> board.generateEvasions(new MoveList()));
+        }
+    }
+
+    private static Stream<String> checkFenStrings() {
+        return Stream.of(
+                "4k3/8/8/8/8/8/3PPP2/r3K3 w - - 0 1",
+                "4k3/8/8/8/1b6/8/8/R3K2R w KQ - 0 1",
+                "4k3/8/8/8/4r3/2B5/8/R3K3 w Q - 0 1",
+                "4k3/8/8/2pP4/1K6/8/8/8 w - c6 0 1",
+                "8/8/8/5k2/3pP3/8/8/4K3 b - e3 0 1",
+                "4k3/8/8/8/8/5n2/8/r3K3 w - - 0 1",
+                "4k3/1P6/8/8/8/8/8/q3K2R w K - 0 1",
+                "3rk3/8/8/8/8/8/8/3K1N2 w - - 0 1",
+                "4k3/8/8/b7/8/8/2P1P3/4K1N1 w - - 0 1"
+        );
+    }
+
     private static Stream<String> fenStrings() {
         return Stream.of(
                 "8/r2p4/3N3p/n4P1q/3P2k1/P2PQ1p1/pK6/2R5 w - - 0 1",
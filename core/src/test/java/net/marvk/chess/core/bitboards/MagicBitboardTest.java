@@ -5,14 +5,13 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.util.function.Function;
 
 class MagicBitboardTest {
 
     @Test
-    public void testPredefinedRookMagics() throws NoSuchFieldException, IllegalAccessException, NoSuchMethodException, InvocationTargetException, InstantiationException {
+    public void testPredefinedRookMagics() throws IllegalAccessException, NoSuchMethodException, InvocationTargetException, InstantiationException {
         final long[] loadedMagics = getMagics(MagicBitboard.ROOK);
         final long[] calculatedMagics = getMagics(getBitboardInstance(Configuration::rookConfiguration));
 
@@ -20,13 +19,46 @@ class MagicBitboardTest {
     }
 
     @Test
-    public void testPredefinedBishopMagics() throws NoSuchFieldException, IllegalAccessException, NoSuchMethodException, InvocationTargetException, InstantiationException {
+    public void testPredefinedBishopMagics() throws IllegalAccessException, NoSuchMethodException, InvocationTargetException, InstantiationException {
         final long[] loadedMagics = getMagics(MagicBitboard.BISHOP);
         final long[] calculatedMagics = getMagics(getBitboardInstance(Configuration::bishopConfiguration));
 
         Assertions.assertArrayEquals(loadedMagics, calculatedMagics);
     }
 
+    @Test
+    public void testOverlappingTablesMustAgree() {
+        final long[] magics = MagicBitboard.ROOK.magics();
+
+        Assertions.assertThrows(IllegalStateException.class, () -> new MagicBitboard(
+                square -> Configuration.rookConfiguration(square, magics[square.getBitboardIndex()]),
+                null,
+                new int[64]
+        ));
+    }
+
+    @Test
+    public void testNegativeEntriesAreRejected() {
+        final long[] magics = MagicBitboard.BISHOP.magics();
+        final Square negative = Square.get(3, 4);
+
+        final int[] offsets = new int[64];
+
+        for (int index = 0; index < 64; index++) {
+            offsets[index] = index << 12;
+        }
+
+        offsets[negative.getBitboardIndex()] = -1;
+
+        final IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class, () -> new MagicBitboard(
+                square -> Configuration.bishopConfiguration(square, magics[square.getBitboardIndex()]),
+                null,
+                offsets
+        ));
+
+        Assertions.assertTrue(exception.getMessage().endsWith(negative.toString()), exception::getMessage);
+    }
+
     private static MagicBitboard getBitboardInstance(final Function<Square, Configuration> configuration) throws NoSuchMethodException, InstantiationException, IllegalAccessException, InvocationTargetException {
         final Constructor<MagicBitboard> constructor = MagicBitboard.class.getDeclaredConstructor(Function.class);
 
@@ -35,9 +67,7 @@ class MagicBitboardTest {
         return constructor.newInstance(configuration);
     }
 
-    private static long[] getMagics(final MagicBitboard bitboard) throws NoSuchFieldException, IllegalAccessException {
-        final Field field = MagicBitboard.class.getDeclaredField("magics");
-        field.setAccessible(true);
-        return (long[]) field.get(bitboard);
+    private static long[] getMagics(final MagicBitboard bitboard) {
+        return bitboard.magics();
     }
 }
\ No newline at end of file
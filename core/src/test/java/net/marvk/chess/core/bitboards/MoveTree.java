@@ -0,0 +1,52 @@
+package net.marvk.chess.core.bitboards;
+
+import org.junit.jupiter.api.Assertions;
+
+import java.util.function.Consumer;
+
+/**
+ * Walks the legal move tree of a position with make/unmake, for tests and benchmarks that check every node
+ */
+final class MoveTree {
+    private MoveTree() {
+        throw new AssertionError("No instances of utility class " + MoveTree.class);
+    }
+
+    /**
+     * Passes {@code board} to {@code consumer} at every node of its legal move tree down to {@code depth} plies, parents
+     * before their children. The consumer may make and unmake moves but has to leave the position unchanged. Every
+     * unmake of the walk is checked to restore the zobrist hash.
+     *
+     * @return the number of leaves
+     */
+    static long forEachNode(final Bitboard board, final int depth, final Consumer<Bitboard> consumer) {
+        return forEachNode(board, depth, consumer, MoveList.forPlies(depth + 1));
+    }
+
+    private static long forEachNode(final Bitboard board, final int depth, final Consumer<Bitboard> consumer, final MoveList[] moveLists) {
+        consumer.accept(board);
+
+        if (depth == 0) {
+            return 1L;
+        }
+
+        final MoveList moves = moveLists[depth];
+        board.generateLegalMoves(moves);
+
+        final long zobristHash = board.zobristHash();
+
+        long leaves = 0L;
+
+        for (int i = 0; i < moves.size(); i++) {
+            final int move = moves.get(i);
+
+            board.make(move);
+            leaves += forEachNode(board, depth - 1, consumer, moveLists);
+            board.unmake(move);
+
+            Assertions.assertEquals(zobristHash, board.zobristHash(), board::fen);
+        }
+
+        return leaves;
+    }
+}
@@ -0,0 +1,104 @@
+package net.marvk.chess.core.bitboards;
+
+import net.marvk.chess.core.Fen;
+import net.marvk.chess.core.UciMove;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+class PerftTest {
+    private static final String POSITION_2 = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -";
+
+    @Test
+    void perft() {
+        final Perft perft = new Perft(new Bitboard(Fen.parse(POSITION_2)));
+
+        Assertions.assertEquals(48L, perft.perft(1));
+        Assertions.assertEquals(2_039L, perft.perft(2));
+        Assertions.assertEquals(97_862L, perft.perft(3));
+    }
+
+    @Test
+    void parallelPerft() {
+        final Perft perft = new Perft(new Bitboard(Fen.parse(POSITION_2)));
+
+        Assertions.assertEquals(97_862L, perft.parallelPerft(3));
+        Assertions.assertEquals(4_085_603L, perft.parallelPerft(4));
+    }
+
+    @Test
+    void hashedPerft() {
+        final PerftCache cache = new PerftCache(16);
+        final Perft perft = new Perft(new Bitboard(Fen.parse(POSITION_2)), cache);
+
+        Assertions.assertEquals(97_862L, perft.perft(3));
+        Assertions.assertEquals(4_085_603L, perft.parallelPerft(4));
+        Assertions.assertEquals(4_085_603L, perft.parallelPerft(4));
+    }
+
+    @Test
+    void perftCache() {
+        final PerftCache cache = new PerftCache(4);
+
+        Assertions.assertEquals(-1L, cache.get(42L, 3));
+
+        cache.put(42L, 3, 1_000L);
+
+        Assertions.assertEquals(1_000L, cache.get(42L, 3));
+        Assertions.assertEquals(-1L, cache.get(42L, 2));
+        Assertions.assertEquals(-1L, cache.get(42L + 16L, 3));
+
+        cache.clear();
+
+        Assertions.assertEquals(-1L, cache.get(42L, 3));
+
+        Assertions.assertEquals(-1L, new PerftCache(0).get(42L, 3));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new PerftCache(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new PerftCache(PerftCache.MAX_LOG2_ENTRIES + 1));
+    }
+
+    @Test
+    void perftCacheLargestIndex() {
+        final int mask = (1 << PerftCache.MAX_LOG2_ENTRIES) - 1;
+        final int length = 2 << PerftCache.MAX_LOG2_ENTRIES;
+
+        Assertions.assertTrue(length > 0);
+        Assertions.assertEquals(length - 2, PerftCache.index(-1L, mask));
+        Assertions.assertEquals(0, PerftCache.index(0L, mask));
+    }
+
+    @Test
+    void divide() {
+        final Perft perft = new Perft(new Bitboard(Fen.parse(POSITION_2)));
+
+        final Map<UciMove, Long> divide = perft.divide(3);
+        final Map<UciMove, Long> parallelDivide = perft.parallelDivide(3);
+
+        Assertions.assertEquals(48, divide.size());
+        Assertions.assertEquals(97_862L, divide.values().stream().mapToLong(Long::longValue).sum());
+        Assertions.assertEquals(divide, parallelDivide);
+    }
+
+    @Test
+    void invalidDepth() {
+        final Perft perft = new Perft(new Bitboard(Fen.parse(POSITION_2)));
+
+        Assertions.assertEquals(1L, perft.perft(0));
+        Assertions.assertEquals(1L, perft.parallelPerft(0));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> perft.perft(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> perft.parallelPerft(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> perft.divide(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> perft.parallelDivide(0));
+    }
+
+    @Test
+    void doesNotModifyBoard() {
+        final Bitboard board = new Bitboard(Fen.parse(POSITION_2));
+
+        new Perft(board).parallelPerft(3);
+
+        Assertions.assertEquals(POSITION_2 + " 0 1", board.fen());
+    }
+}
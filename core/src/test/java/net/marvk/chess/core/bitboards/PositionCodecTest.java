@@ -0,0 +1,79 @@
+package net.marvk.chess.core.bitboards;
+
+import net.marvk.chess.core.Fen;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+class PositionCodecTest {
+    @ParameterizedTest
+    @MethodSource("fenStrings")
+    void roundTrip(final String fen) {
+        final ByteBuffer buffer = ByteBuffer.allocate(PositionCodec.BYTES);
+        final Bitboard decoded = new Bitboard(Fen.parse(fen));
+
+        MoveTree.forEachNode(new Bitboard(Fen.parse(fen)), 2, board -> assertRoundTrip(board, buffer, decoded));
+    }
+
+    private static void assertRoundTrip(final Bitboard board, final ByteBuffer buffer, final Bitboard decoded) {
+        buffer.clear();
+        PositionCodec.encode(board, buffer);
+        Assertions.assertEquals(PositionCodec.BYTES, buffer.position());
+
+        buffer.flip();
+        PositionCodec.decode(buffer, decoded);
+        Assertions.assertFalse(buffer.hasRemaining());
+
+        Assertions.assertEquals(board.fen(), decoded.fen());
+        Assertions.assertEquals(board.zobristHash(), decoded.zobristHash(), board::fen);
+        Assertions.assertEquals(board, decoded, board::fen);
+    }
+
+    @Test
+    void bulk() {
+        final List<Bitboard> boards = fenStrings().map(Fen::parse).map(Bitboard::new).collect(Collectors.toList());
+
+        final ByteBuffer buffer = ByteBuffer.allocate(boards.size() * PositionCodec.BYTES + 3);
+        PositionCodec.encodeAll(boards, buffer);
+        buffer.flip();
+
+        final List<String> decoded = new ArrayList<>();
+
+        Assertions.assertEquals(boards.size(), PositionCodec.decodeAll(buffer, new Bitboard(Fen.STARTING_POSITION), board -> decoded.add(board.fen())));
+        Assertions.assertEquals(fenStrings().collect(Collectors.toList()), decoded);
+
+        Assertions.assertThrows(BufferOverflowException.class, () -> PositionCodec.encodeAll(boards, ByteBuffer.allocate(PositionCodec.BYTES)));
+    }
+
+    @Test
+    void invalid() {
+        final ByteBuffer buffer = ByteBuffer.allocate(PositionCodec.BYTES);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PositionCodec.encode(new Bitboard(Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 65536 200")), buffer));
+
+        buffer.clear();
+        buffer.putLong(0x1L).putLong(0x7L).putLong(0L).putLong(0L).flip();
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PositionCodec.decode(buffer, new Bitboard(Fen.STARTING_POSITION)));
+    }
+
+    private static Stream<String> fenStrings() {
+        return Stream.of(
+                Fen.STARTING_POSITION.getInput(),
+                "rnbqkbnr/pp1ppppp/8/2p5/4P3/8/PPPP1PPP/RNBQKBNR w KQkq c6 0 2",
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                "8/8/8/4k3/8/8/8/4K3 b - - 99 1234"
+        );
+    }
+}
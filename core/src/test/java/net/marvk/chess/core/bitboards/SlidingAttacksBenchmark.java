@@ -0,0 +1,165 @@
+package net.marvk.chess.core.bitboards;
+
+import net.marvk.chess.core.Fen;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * Throughput of the {@link SlidingAttacks} backends with one thread and with one thread per processor, the latter
+ * standing in for many engine instances sharing a machine. Not run by default, prints the best of several timed runs
+ * after a warmup.
+ * <p>
+ * {@link #lookups()} calls the backends directly, every thread alternating between a queen lookup and a write into its
+ * own transposition table sized array. {@link #legalPerft()} starts a fresh JVM per backend, since {@link Bitboard}
+ * selects its backend once per JVM.
+ */
+public class SlidingAttacksBenchmark {
+    private static final List<String> BACKENDS = List.of("magic", "hyperbola");
+    private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+    private static final int[] THREAD_COUNTS = PROCESSORS == 1 ? new int[]{1} : new int[]{1, PROCESSORS};
+
+    private static final int WARMUP_RUNS = 3;
+    private static final int RUNS = 5;
+
+    private static final int LOOKUPS = 20_000_000;
+    private static final int SAMPLES = 1 << 16;
+    private static final int TABLE_ENTRIES = 1 << 22;
+
+    @Test
+    public void lookups() throws InterruptedException, ExecutionException {
+        final Random random = new Random(0L);
+
+        final long[] occupancies = new long[SAMPLES];
+        final int[] squares = new int[SAMPLES];
+
+        for (int i = 0; i < SAMPLES; i++) {
+            occupancies[i] = random.nextLong() & random.nextLong();
+            squares[i] = random.nextInt(64);
+        }
+
+        for (final String backend : BACKENDS) {
+            final SlidingAttacks slidingAttacks = SlidingAttacks.forName(backend);
+
+            for (final int threads : THREAD_COUNTS) {
+                final long[][] tables = new long[threads][TABLE_ENTRIES];
+
+                benchmark(backend + " lookups", threads, thread -> () -> lookups(slidingAttacks, occupancies, squares, tables[thread]));
+            }
+        }
+    }
+
+    private static long lookups(final SlidingAttacks slidingAttacks, final long[] occupancies, final int[] squares, final long[] table) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            final int sample = i & (SAMPLES - 1);
+            final long attacks = slidingAttacks.queenAttacks(occupancies[sample], squares[sample]);
+
+            table[(int) ((attacks * 0x9e3779b97f4a7c15L) >>> 42)] ^= attacks;
+        }
+
+        return LOOKUPS;
+    }
+
+    @Test
+    public void legalPerft() throws IOException, InterruptedException {
+        for (final String backend : BACKENDS) {
+            final List<String> command = List.of(
+                    Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-D" + SlidingAttacks.BACKEND_PROPERTY + "=" + backend,
+                    "-cp",
+                    System.getProperty("java.class.path"),
+                    SlidingAttacksBenchmark.class.getName()
+            );
+
+            final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+            try (final BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+
+                while ((line = reader.readLine()) != null) {
+                    System.out.println(line);
+                }
+            }
+
+            Assertions.assertEquals(0, process.waitFor(), "Benchmark of " + backend + " failed");
+        }
+    }
+
+    /**
+     * Runs the legal perft of {@link BitboardBenchmark} with the backend selected by the system property, once with
+     * one thread and once with one board per thread.
+     */
+    public static void main(final String[] args) throws InterruptedException, ExecutionException {
+        final String backend = System.getProperty(SlidingAttacks.BACKEND_PROPERTY, "magic");
+
+        for (final int threads : THREAD_COUNTS) {
+            benchmark(backend + " legal perft, depth 4", threads, thread -> SlidingAttacksBenchmark::legalPerftNodes);
+        }
+    }
+
+    private static long legalPerftNodes() {
+        long nodes = 0L;
+
+        for (final String fen : BitboardBenchmark.FEN_STRINGS) {
+            nodes += new Perft(new Bitboard(Fen.parse(fen))).perft(4);
+        }
+
+        return nodes;
+    }
+
+    /**
+     * @param task the task of every thread, returning the number of nodes it visited
+     */
+    private static void benchmark(final String name, final int threads, final IntFunction<Callable<Long>> task) throws InterruptedException, ExecutionException {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                run(executor, threads, task);
+            }
+
+            long bestNanos = Long.MAX_VALUE;
+            long nodes = 0L;
+
+            for (int i = 0; i < RUNS; i++) {
+                final long start = System.nanoTime();
+                nodes = run(executor, threads, task);
+                bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            }
+
+            System.out.printf("%-40s %3d threads %,14d nodes %,10d ms %,14d nodes/s%n", name, threads, nodes, bestNanos / 1_000_000L, nodes * 1_000_000_000L / bestNanos);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static long run(final ExecutorService executor, final int threads, final IntFunction<Callable<Long>> task) throws InterruptedException, ExecutionException {
+        final List<Future<Long>> futures = new ArrayList<>();
+
+        for (int thread = 0; thread < threads; thread++) {
+            futures.add(executor.submit(task.apply(thread)));
+        }
+
+        long nodes = 0L;
+
+        for (final Future<Long> future : futures) {
+            nodes += future.get();
+        }
+
+        return nodes;
+    }
+}
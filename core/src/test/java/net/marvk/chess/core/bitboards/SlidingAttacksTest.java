@@ -0,0 +1,62 @@
+package net.marvk.chess.core.bitboards;
+
+import net.marvk.chess.core.Square;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+import java.util.function.LongUnaryOperator;
+
+class SlidingAttacksTest {
+    @ParameterizedTest
+    @ValueSource(strings = {"magic", "hyperbola"})
+    void rookAttacks(final String backend) {
+        final SlidingAttacks slidingAttacks = SlidingAttacks.forName(backend);
+        final long[] magics = MagicBitboard.ROOK.magics();
+
+        for (final Square square : Square.values()) {
+            final Configuration configuration = Configuration.rookConfiguration(square, magics[square.getBitboardIndex()]);
+
+            assertAttacks(configuration, occupancy -> slidingAttacks.rookAttacks(occupancy, square.getBitboardIndex()));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"magic", "hyperbola"})
+    void bishopAttacks(final String backend) {
+        final SlidingAttacks slidingAttacks = SlidingAttacks.forName(backend);
+        final long[] magics = MagicBitboard.BISHOP.magics();
+
+        for (final Square square : Square.values()) {
+            final Configuration configuration = Configuration.bishopConfiguration(square, magics[square.getBitboardIndex()]);
+
+            assertAttacks(configuration, occupancy -> slidingAttacks.bishopAttacks(occupancy, square.getBitboardIndex()));
+        }
+    }
+
+    /**
+     * Checks every relevant occupancy of the configuration, with random irrelevant squares occupied as well
+     */
+    private static void assertAttacks(final Configuration configuration, final LongUnaryOperator attacks) {
+        final Random random = new Random(configuration.getSquare().getBitboardIndex());
+
+        for (final long occupancy : configuration.occupancies()) {
+            final long irrelevant = random.nextLong() & ~configuration.getMask();
+
+            Assertions.assertEquals(
+                    configuration.generateAttacksForConfiguration(occupancy),
+                    attacks.applyAsLong(occupancy | irrelevant),
+                    () -> configuration.getSquare() + " " + Long.toHexString(occupancy | irrelevant)
+            );
+        }
+    }
+
+    @Test
+    void forName() {
+        Assertions.assertSame(SlidingAttacks.magic(), SlidingAttacks.forName("magic"));
+        Assertions.assertSame(SlidingAttacks.hyperbola(), SlidingAttacks.forName("hyperbola"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SlidingAttacks.forName("kogge-stone"));
+    }
+}
@@ -0,0 +1,119 @@
+package net.marvk.chess.core.bitboards;
+
+import net.marvk.chess.core.Fen;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+class StagedMoveGeneratorTest {
+    @ParameterizedTest
+    @MethodSource("fenStrings")
+    void yieldsLegalMoves(final String fen) {
+        MoveTree.forEachNode(new Bitboard(Fen.parse(fen)), 2, StagedMoveGeneratorTest::assertYieldsLegalMoves);
+    }
+
+    private static void assertYieldsLegalMoves(final Bitboard board) {
+        final MoveList legalMoves = new MoveList();
+        board.generateLegalMoves(legalMoves);
+
+        final Set<Integer> expected = new HashSet<>();
+
+        for (int i = 0; i < legalMoves.size(); i++) {
+            expected.add(legalMoves.get(i));
+        }
+
+        final int hashMove = legalMoves.isEmpty() ? MoveConstants.NO_MOVE : legalMoves.get(legalMoves.size() / 2);
+
+        final StagedMoveGenerator stagedMoveGenerator = new StagedMoveGenerator();
+        stagedMoveGenerator.reset(board, hashMove);
+
+        final Set<Integer> actual = new HashSet<>();
+
+        boolean quietMoveEncountered = false;
+
+        for (int move = stagedMoveGenerator.next(); move != MoveConstants.NO_MOVE; move = stagedMoveGenerator.next()) {
+            if (actual.isEmpty()) {
+                Assertions.assertEquals(hashMove, move, "Hash move not first");
+            } else {
+                final boolean tactical = (move & (MoveConstants.PIECE_ATTACKED_MASK | MoveConstants.PROMOTION_PIECE_MASK)) != 0;
+
+                Assertions.assertFalse(tactical && quietMoveEncountered, "Tactical move after quiet move");
+                quietMoveEncountered |= !tactical;
+            }
+
+            Assertions.assertTrue(actual.add(move), "Duplicate move");
+        }
+
+        Assertions.assertEquals(expected, actual, board::fen);
+    }
+
+    @ParameterizedTest
+    @MethodSource("fenStrings")
+    void resolvesHashMove(final String fen) {
+        final Bitboard board = new Bitboard(Fen.parse(fen));
+
+        final MoveList legalMoves = new MoveList();
+        board.generateLegalMoves(legalMoves);
+
+        final int move = legalMoves.get(0);
+
+        Assertions.assertEquals(move, board.resolveLegalMove(move));
+
+        board.make(move);
+
+        // the same move is never legal again for the opponent
+        Assertions.assertEquals(MoveConstants.NO_MOVE, board.resolveLegalMove(move));
+    }
+
+    @ParameterizedTest
+    @MethodSource("fenStrings")
+    void scoresHashMoveLikeGeneratedMoves(final String fen) {
+        final Bitboard board = new Bitboard(Fen.parse(fen));
+
+        final MoveList legalMoves = new MoveList();
+        board.generateLegalMoves(legalMoves);
+
+        final StagedMoveGenerator stagedMoveGenerator = new StagedMoveGenerator();
+
+        for (int i = 0; i < legalMoves.size(); i++) {
+            final Bitboard.BBMove expected = legalMoves.getBBMove(i);
+
+            stagedMoveGenerator.reset(board, expected.getBits());
+
+            Assertions.assertThrows(IllegalStateException.class, stagedMoveGenerator::currentBBMove);
+            Assertions.assertEquals(expected.getBits(), stagedMoveGenerator.next());
+
+            board.make(expected.getBits());
+            final Bitboard.BBMove actual = stagedMoveGenerator.currentBBMove();
+            board.unmake(expected.getBits());
+
+            Assertions.assertEquals(expected.getBits(), actual.getBits());
+            Assertions.assertEquals(expected.getMvvLvaValue(), actual.getMvvLvaValue(), board::fen);
+            Assertions.assertEquals(expected.getMvvLvaSquarePieceDifferenceValue(), actual.getMvvLvaSquarePieceDifferenceValue(), board::fen);
+        }
+
+        stagedMoveGenerator.reset(board, MoveConstants.NO_MOVE);
+
+        while (stagedMoveGenerator.next() != MoveConstants.NO_MOVE) {
+            stagedMoveGenerator.currentBBMove();
+        }
+
+        Assertions.assertThrows(IllegalStateException.class, stagedMoveGenerator::currentBBMove);
+    }
+
+    private static Stream<String> fenStrings() {
+        return Stream.of(
+                Fen.STARTING_POSITION.getInput(),
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1",
+                "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"
+        );
+    }
+}
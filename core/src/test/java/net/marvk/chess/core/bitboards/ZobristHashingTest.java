@@ -63,6 +63,8 @@ class ZobristHashingTest {
     @BeforeAll
     public void setup() {
         transpositionTable = new HashMap<>();
+
+        Bitboard.setZobristVerification(true);
     }
 
     @BeforeEach
@@ -78,6 +80,8 @@ class ZobristHashingTest {
 
     @AfterAll
     public void printResult() {
+        Bitboard.setZobristVerification(false);
+
         System.out.println("Total results");
         print(totalNodes, totalTableHits, totalCollisions);
     }
@@ -108,6 +112,9 @@ class ZobristHashingTest {
         nodes++;
 
         final long zobristHash = board.zobristHash();
+
+        Assertions.assertEquals(board.computeZobristHash(), zobristHash, () -> "Incremental zobrist hash differs for " + board.fen());
+
         final Bitboard value = new Bitboard(board);
         final Bitboard hit = transpositionTable.get(zobristHash);
 
@@ -2,9 +2,12 @@ package net.marvk.chess.kairukuengine;
 
 import lombok.extern.log4j.Log4j2;
 import net.marvk.chess.core.Color;
-import net.marvk.chess.core.Fen;
+import net.marvk.chess.core.PositionTracker;
 import net.marvk.chess.core.UciMove;
 import net.marvk.chess.core.bitboards.Bitboard;
+import net.marvk.chess.core.bitboards.MoveConstants;
+import net.marvk.chess.core.bitboards.MoveList;
+import net.marvk.chess.core.bitboards.StagedMoveGenerator;
 import net.marvk.chess.uci4j.*;
 import org.apache.commons.lang3.time.StopWatch;
 
@@ -24,7 +27,6 @@ public class KairukuEngine extends SimpleUciEngine {
 
     private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat("#.#####", new DecimalFormatSymbols(Locale.ENGLISH));
 
-    private final MvvLvaPieceSquareDifferenceMoveOrder defaultMoveOrder = new MvvLvaPieceSquareDifferenceMoveOrder();
     private final MvvLvaMoveOrder quiescenceSearchMoveOrder = new MvvLvaMoveOrder();
 
     private final Heuristic heuristic = new SimpleHeuristic();
@@ -35,17 +37,19 @@ public class KairukuEngine extends SimpleUciEngine {
     private int ply;
     private double plyBonus;
 
+    private final PositionTracker positionTracker = new PositionTracker();
     private Bitboard board;
 
     private Color selfColor;
 
     private final Metrics metrics = new Metrics();
     private final TranspositionTable<TranspositionTable.Entry> transpositionTable = new TranspositionTable<>(10_000_000);
-    private final Set<Long> movesSinceHalfmoveReset = new HashSet<>();
 
     private final Set<UciMove> searchMoves = new HashSet<>();
 
     private Bitboard.BBMove[] previousPv;
+    private StagedMoveGenerator[] stagedMoveGenerators = new StagedMoveGenerator[0];
+    private final MoveList horizonMoves = new MoveList();
     private final int quiescencePly = Integer.MAX_VALUE;
 
     public KairukuEngine(final UiChannel uiChannel) {
@@ -65,6 +69,7 @@ public class KairukuEngine extends SimpleUciEngine {
     public void uci() {
         uiChannel.idName("kairuku");
         uiChannel.optionSpin(PLY_OPTION, ply, 1, 7);
+        uiChannel.uciOk();
     }
 
     @Override
@@ -101,12 +106,12 @@ public class KairukuEngine extends SimpleUciEngine {
 
     @Override
     public void positionFromDefault(final UciMove[] moves) {
-        board = UciMove.getBoard(moves);
+        board = new Bitboard(positionTracker.update(moves));
     }
 
     @Override
     public void position(final String fenString, final UciMove[] moves) {
-        board = UciMove.getBoard(moves, Fen.parse(fenString));
+        board = new Bitboard(positionTracker.update(fenString, moves));
     }
 
     @Override
@@ -251,18 +256,20 @@ public class KairukuEngine extends SimpleUciEngine {
         resetForMove();
         metrics.resetAll();
         board = null;
+        positionTracker.reset();
         plyBonus = 0.0;
         transpositionTable.clear();
         previousPv = null;
-
-        // TODO remove last two (?) entries if no new position has been given since last go
-        movesSinceHalfmoveReset.clear();
     }
 
     // region Search
 
     private ValuedMove play() {
-        movesSinceHalfmoveReset.add(board.zobristHash());
+        if (stagedMoveGenerators.length <= ply) {
+            stagedMoveGenerators = Stream.generate(StagedMoveGenerator::new)
+                                         .limit(ply + 1)
+                                         .toArray(StagedMoveGenerator[]::new);
+        }
 
         final StopWatch stopwatch = StopWatch.createStarted();
         final ValuedMove result = negamax(ply, SimpleHeuristic.LOSS, SimpleHeuristic.WIN, selfColor);
@@ -274,11 +281,6 @@ public class KairukuEngine extends SimpleUciEngine {
 
         log.info(infoString(result));
 
-        final Bitboard.BBMove theMove = result.getMove();
-        board.make(theMove);
-        movesSinceHalfmoveReset.add(board.zobristHash());
-        board.unmake(theMove);
-
         return result;
     }
 
@@ -287,7 +289,7 @@ public class KairukuEngine extends SimpleUciEngine {
 
         final long zobristHash = board.zobristHash();
 
-        if (depth < ply && movesSinceHalfmoveReset.contains(zobristHash)) {
+        if (depth < ply && board.isRepetition()) {
             return new ValuedMove(SimpleHeuristic.DRAW, null, null);
         }
 
@@ -314,12 +316,12 @@ public class KairukuEngine extends SimpleUciEngine {
             }
         }
 
-        final List<Bitboard.BBMove> pseudoLegalMoves = board.generatePseudoLegalMoves();
-
         if (depth == 0) {
-            final boolean legalMovesRemaining = Bitboard.hasAnyLegalMoves(board, pseudoLegalMoves);
+            board.generateLegalMoves(horizonMoves);
 
-            if (legalMovesRemaining && Bitboard.hasAnyAttackMoves(pseudoLegalMoves)) {
+            final boolean legalMovesRemaining = !horizonMoves.isEmpty();
+
+            if (legalMovesRemaining && horizonMoves.hasAnyAttackMoves()) {
                 return quiescenceSearch(quiescencePly, alpha, beta, currentColor);
             }
 
@@ -328,18 +330,9 @@ public class KairukuEngine extends SimpleUciEngine {
             return new ValuedMove(value, null, null);
         }
 
-        if (previousPv != null) {
-            final int i = 2 + ply - depth;
-
-            if (i < previousPv.length) {
-                // set the previous PV move as the first move to be searched
-                defaultMoveOrder.sort(pseudoLegalMoves, previousPv[i]);
-            } else {
-                defaultMoveOrder.sort(pseudoLegalMoves);
-            }
-        } else {
-            defaultMoveOrder.sort(pseudoLegalMoves);
-        }
+        // moves are generated lazily in stages, the quiet moves are never generated if a capture causes a cutoff
+        final StagedMoveGenerator moves = stagedMoveGenerators[depth];
+        moves.reset(board, hashMove(ttEntry, depth));
 
         int value = SimpleHeuristic.LOSS;
         ValuedMove bestChild = null;
@@ -347,18 +340,13 @@ public class KairukuEngine extends SimpleUciEngine {
 
         boolean legalMovesEncountered = false;
 
-        for (final Bitboard.BBMove current : pseudoLegalMoves) {
-            if (depth == ply && !searchMoves.isEmpty() && !searchMoves.contains(current.asUciMove())) {
+        for (int current = moves.next(); current != MoveConstants.NO_MOVE; current = moves.next()) {
+            if (depth == ply && !searchMoves.isEmpty() && !searchMoves.contains(Bitboard.BBMove.asUciMove(current))) {
                 continue;
             }
 
             board.make(current);
 
-            if (board.isInvalidPosition()) {
-                board.unmake(current);
-                continue;
-            }
-
             legalMovesEncountered = true;
 
             final ValuedMove child = negamax(depth - 1, -beta, -alpha, currentColor.opposite());
@@ -367,7 +355,7 @@ public class KairukuEngine extends SimpleUciEngine {
 
             if (childValue > value) {
                 value = childValue;
-                bestMove = current;
+                bestMove = moves.currentBBMove();
                 bestChild = child;
             }
 
@@ -404,8 +392,28 @@ public class KairukuEngine extends SimpleUciEngine {
         return result;
     }
 
+    /**
+     * The move of the transposition table entry if present, otherwise the move of the previous principal variation
+     */
+    private int hashMove(final TranspositionTable.Entry ttEntry, final int depth) {
+        if (ttEntry != null && ttEntry.getValuedMove().getMove() != null) {
+            return ttEntry.getValuedMove().getMove().getBits();
+        }
+
+        if (previousPv != null) {
+            final int i = 2 + ply - depth;
+
+            if (i < previousPv.length && previousPv[i] != null) {
+                return previousPv[i].getBits();
+            }
+        }
+
+        return MoveConstants.NO_MOVE;
+    }
+
     private ValuedMove quiescenceSearch(final int depth, final int initialAlpha, final int initialBeta, final Color currentColor) {
-        final List<Bitboard.BBMove> pseudoLegalAttackMoves = board.generatePseudoLegalAttackMoves();
+        // only legal moves, generated by the evasion generator when in check
+        final List<Bitboard.BBMove> moves = board.generateLegalAttackMoves();
 
         // Pretend the game is not over for speed?!
         final int standingPat = currentColor.getHeuristicFactor() * heuristic.evaluate(board, true);
@@ -423,19 +431,21 @@ public class KairukuEngine extends SimpleUciEngine {
             return new ValuedMove(alpha, null, null);
         }
 
-        quiescenceSearchMoveOrder.sort(pseudoLegalAttackMoves);
+        quiescenceSearchMoveOrder.sort(moves);
+
+        // evasions have to be searched, outside of check captures that lose material are not worth searching
+        final boolean inCheck = board.isInCheck();
 
         Bitboard.BBMove bestMove = null;
         ValuedMove bestChild = null;
 
-        for (final Bitboard.BBMove current : pseudoLegalAttackMoves) {
-            board.make(current);
-
-            if (board.isInvalidPosition()) {
-                board.unmake(current);
+        for (final Bitboard.BBMove current : moves) {
+            if (!inCheck && !board.seeGreaterOrEqual(current.getBits(), 0)) {
                 continue;
             }
 
+            board.make(current);
+
             final ValuedMove child = quiescenceSearch(depth - 1, -initialBeta, -alpha, currentColor.opposite());
             final int value = -child.getValue();
 
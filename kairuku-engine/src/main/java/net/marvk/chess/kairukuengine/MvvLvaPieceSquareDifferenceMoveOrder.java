@@ -1,7 +1,7 @@
 package net.marvk.chess.kairukuengine;
 
 import net.marvk.chess.core.bitboards.Bitboard;
-import net.marvk.chess.core.UciMove;
+import net.marvk.chess.core.bitboards.MoveConstants;
 
 import java.util.Comparator;
 import java.util.List;
@@ -11,15 +11,18 @@ public class MvvLvaPieceSquareDifferenceMoveOrder implements MoveOrder {
     private static final Comparator<Bitboard.BBMove> MOVE_ORDER_COMPARATOR =
             Comparator.comparing(Bitboard.BBMove::getMvvLvaSquarePieceDifferenceValue).reversed();
 
+    private static final int SQUARES_AND_PROMOTION_MASK =
+            MoveConstants.SOURCE_SQUARE_INDEX_MASK | MoveConstants.TARGET_SQUARE_INDEX_MASK | MoveConstants.PROMOTION_PIECE_MASK;
+
     @Override
     public void sort(final List<Bitboard.BBMove> moves) {
         moves.sort(MOVE_ORDER_COMPARATOR);
     }
 
     public void sort(final List<Bitboard.BBMove> pseudoLegalMoves, final Bitboard.BBMove previousPvMove) {
-        final UciMove uciMove = previousPvMove.asUciMove();
+        final int previousPvBits = previousPvMove.getBits() & SQUARES_AND_PROMOTION_MASK;
         final Optional<Bitboard.BBMove> removed = pseudoLegalMoves.stream()
-                                                                  .filter(e -> uciMove.equals(e.asUciMove()))
+                                                                  .filter(e -> (e.getBits() & SQUARES_AND_PROMOTION_MASK) == previousPvBits)
                                                                   .findFirst();
         sort(pseudoLegalMoves);
 
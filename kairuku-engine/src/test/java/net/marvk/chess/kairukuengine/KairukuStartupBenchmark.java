@@ -0,0 +1,99 @@
+package net.marvk.chess.kairukuengine;
+
+import net.marvk.chess.core.Fen;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Startup benchmark of the engine as launched by a GUI or a tournament manager. Not run by default, every run starts
+ * a fresh JVM with {@link KairukuApp} on the test class path and measures the time until {@code uciok}, and until
+ * {@code readyok} after the first position, which initialises the board tables. Prints the best and median of several
+ * runs.
+ */
+public class KairukuStartupBenchmark {
+    private static final int RUNS = 10;
+
+    @Test
+    public void jvmStartToUciOk() throws IOException, InterruptedException {
+        final long[] uciOkMillis = new long[RUNS];
+        final long[] readyOkMillis = new long[RUNS];
+
+        for (int i = 0; i < RUNS; i++) {
+            final long[] millis = startup();
+
+            uciOkMillis[i] = millis[0];
+            readyOkMillis[i] = millis[1];
+        }
+
+        print("JVM start to uciok", uciOkMillis);
+        print("JVM start to readyok after position", readyOkMillis);
+    }
+
+    private static void print(final String name, final long[] millis) {
+        Arrays.sort(millis);
+
+        System.out.printf("%-40s %,10d ms best %,10d ms median%n", name, millis[0], millis[millis.length / 2]);
+    }
+
+    /**
+     * @return the milliseconds from launch until {@code uciok} and until {@code readyok}
+     */
+    private static long[] startup() throws IOException, InterruptedException {
+        final List<String> command = List.of(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp",
+                System.getProperty("java.class.path"),
+                KairukuApp.class.getName()
+        );
+
+        final long start = System.nanoTime();
+
+        final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        try (
+                final Writer writer = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+                final BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))
+        ) {
+            writer.write("uci\n");
+            writer.flush();
+
+            final long uciOk = awaitLine(reader, "uciok", start);
+
+            writer.write("position fen " + Fen.STARTING_POSITION.getInput() + " moves e2e4\n");
+            writer.write("isready\n");
+            writer.flush();
+
+            final long readyOk = awaitLine(reader, "readyok", start);
+
+            writer.write("quit\n");
+            writer.flush();
+
+            return new long[]{uciOk, readyOk};
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static long awaitLine(final BufferedReader reader, final String expected, final long start) throws IOException {
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            if (expected.equals(line.trim())) {
+                return (System.nanoTime() - start) / 1_000_000L;
+            }
+        }
+
+        return Assertions.fail("Engine exited without sending " + expected);
+    }
+}
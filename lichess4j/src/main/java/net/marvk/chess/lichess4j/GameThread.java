@@ -2,7 +2,7 @@ package net.marvk.chess.lichess4j;
 
 import lombok.extern.log4j.Log4j2;
 import net.marvk.chess.core.Color;
-import net.marvk.chess.core.Fen;
+import net.marvk.chess.core.PositionTracker;
 import net.marvk.chess.core.UciMove;
 import net.marvk.chess.core.bitboards.Bitboard;
 import net.marvk.chess.lichess4j.model.ChatLine;
@@ -40,6 +40,7 @@ class GameThread implements Runnable, UiChannel {
     private final String botId;
     private final UciEngine engine;
     private final ChatMessageEventHandler chatMessageEventHandler;
+    private final PositionTracker positionTracker = new PositionTracker();
 
     private Color myColor;
     private String initialFen;
@@ -107,9 +108,9 @@ class GameThread implements Runnable, UiChannel {
         final Bitboard board;
         final boolean defaultFen = initialFen == null || "startpos".equals(initialFen) || initialFen.trim().isEmpty();
         if (defaultFen) {
-            board = UciMove.getBoard(gameState.getMoves());
+            board = positionTracker.update(gameState.getMoves());
         } else {
-            board = UciMove.getBoard(gameState.getMoves(), Fen.parse(initialFen));
+            board = positionTracker.update(initialFen, gameState.getMoves());
         }
 
         if (board.getActivePlayer() != myColor) {